@@ -0,0 +1,73 @@
+package study.querydsl.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.support.MemberColumnarCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * List&lt;MemberTeamDto&gt; 직렬화 비교 : Jackson(JSON) vs MemberColumnarCodec
+ * DB 없이 검색 결과 모양의 DTO 를 만들어서 인코딩 비용만 측정한다. (decodeColumnar 는 클라이언트 쪽 비용 참고용)
+ * 응답 크기는 setUp 에서 출력한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MemberColumnarBenchmark {
+
+    @Param({"100", "1000"})
+    public int rowCount;
+
+    @Param("10")
+    public int teamCount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private List<MemberTeamDto> rows;
+    private byte[] columnar;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        rows = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            long teamId = i % teamCount + 1;
+            rows.add(new MemberTeamDto((long) i + 1, "member" + i, i % 100, teamId, "team" + teamId));
+        }
+
+        byte[] json = encodeJson();
+        columnar = encodeColumnar();
+        System.out.printf("%nrows=%d json=%d bytes columnar=%d bytes%n", rowCount, json.length, columnar.length);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws IOException {
+        return objectMapper.writeValueAsBytes(rows);
+    }
+
+    @Benchmark
+    public byte[] encodeColumnar() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(rowCount * 32);
+        MemberColumnarCodec.write(rows, out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> decodeColumnar() throws IOException {
+        return MemberColumnarCodec.read(new ByteArrayInputStream(columnar));
+    }
+}
@@ -0,0 +1,68 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.loader.MemberBulkLoader;
+
+/**
+ * 벤치마크용 스프링 컨텍스트 + 데이터
+ * 웹 서버 없이 in-memory H2 로 기동하고 MemberBulkLoader 로 memberCount 명을 적재한다.
+ * SQL 로그(show_sql, p6spy, type trace)는 측정에 섞이지 않도록 끈다.
+ * count query 캐시(CountQueryCache)도 끈다. (max-size 0) 켜 두면 첫 호출 이후로는 count query 대신 캐시 hit 을 측정하게 된다.
+ * 페이징 없는 검색의 건수 제한(ResultSizeGuard)은 memberCount 로 올린다. -p memberCount=1000000 에서도 검색이 거절되지 않는다.
+ */
+@State(Scope.Benchmark)
+public class MemberDataState {
+
+    @Param("10000")
+    public int memberCount;
+
+    @Param("10")
+    public int teamCount;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                // command line 인자로 넘겨야 application.yml 보다 우선한다.
+                .run("--spring.profiles.active=jmh",
+                        "--spring.datasource.hikari.jdbc-url=jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.properties.hibernate.show_sql=false",
+                        "--spring.jpa.properties.hibernate.format_sql=false",
+                        "--spring.jpa.properties.hibernate.use_sql_comments=false",
+                        "--decorator.datasource.enabled=false",
+                        "--querydsl.count-cache.max-size=0",
+                        "--querydsl.search-guard.max-rows=" + memberCount,
+                        "--logging.level.root=warn",
+                        "--logging.level.org.hibernate.sql=warn",
+                        "--logging.level.org.hibernate.type=warn");
+
+        context.getBean(MemberBulkLoader.class).load(memberCount, teamCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * 스프링 빈으로 등록되지 않은 클래스를 의존관계 주입까지 마친 상태로 생성
+     */
+    public <T> T createBean(Class<T> type) {
+        return context.getAutowireCapableBeanFactory().createBean(type);
+    }
+}
@@ -0,0 +1,64 @@
+package study.querydsl.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import study.querydsl.dto.MemberPageResponse;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /v2 페이징 응답 직렬화 비교 : PageImpl(BeanSerializer) vs MemberPageResponse(MemberPageResponseSerializer)
+ * 응답 스트림 대신 OutputStream.nullOutputStream() 에 쓴다.
+ * 요청당 할당량은 gc profiler 의 gc.alloc.rate.norm (B/op) 으로 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MemberPageSerializationBenchmark {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final OutputStream out = OutputStream.nullOutputStream();
+
+    private PageImpl<MemberTeamDto> page;
+    private MemberPageResponse response;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<MemberTeamDto> content = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            long teamId = i % 10 + 1;
+            content.add(new MemberTeamDto((long) i + 1, "member" + i, i % 100, teamId, "team" + teamId));
+        }
+        page = new PageImpl<>(content, PageRequest.of(3, pageSize, Sort.by("username")), 10_000);
+        response = MemberPageResponse.of(page);
+    }
+
+    @Benchmark
+    public void pageImpl() throws IOException {
+        objectMapper.writeValue(out, page);
+    }
+
+    @Benchmark
+    public void memberPageResponse() throws IOException {
+        objectMapper.writeValue(out, response);
+    }
+}
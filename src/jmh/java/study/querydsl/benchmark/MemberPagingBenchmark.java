@@ -0,0 +1,123 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberTestRepository;
+import study.querydsl.repository.impl.MemberRepositoryImpl;
+import study.querydsl.support.CountQueryCache;
+import study.querydsl.support.PagingStrategy;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 페이징 구현체 비교 : 조건 없이 전체 회원을 page 번째 페이지까지 넘긴 상태
+ * page 가 클수록 offset 방식은 건너뛰는 row 가 늘어나고, keyset 은 그대로여야 한다.
+ * count query 캐시는 MemberDataState 에서 꺼져 있으므로 Page 조회는 매번 count query 를 실행한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberPagingBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"0", "400"})
+    public int page;
+
+    private MemberRepository memberRepository;
+    private MemberRepositoryImpl memberRepositoryImpl;
+    private MemberTestRepository memberTestRepository;
+
+    private MemberSearchCondition condition;
+    // MemberTestRepository 는 age 조건을 goe/loe 로 적용하므로 전체 나이 범위를 지정
+    private MemberSearchCondition ageRangeCondition;
+    private PageRequest pageRequest;
+    private PageRequest sortedPageRequest;
+    private MemberCursor cursor;
+
+    @Setup(Level.Trial)
+    public void setUp(MemberDataState data) {
+        memberRepository = data.getBean(MemberRepository.class);
+        memberRepositoryImpl = data.createBean(MemberRepositoryImpl.class);
+        memberTestRepository = data.getBean(MemberTestRepository.class);
+
+        condition = new MemberSearchCondition();
+        ageRangeCondition = new MemberSearchCondition();
+        ageRangeCondition.setAgeLoe(100);
+
+        pageRequest = PageRequest.of(page, PAGE_SIZE);
+        sortedPageRequest = PageRequest.of(page, PAGE_SIZE, Sort.by("id"));
+
+        // offset 방식의 page 번째 페이지와 같은 위치를 가리키는 커서
+        cursor = MemberCursor.first(Sort.by("id"));
+        if (page > 0) {
+            List<MemberTeamDto> previous = memberRepository
+                    .searchKeyset(condition, cursor, page * PAGE_SIZE)
+                    .getContent();
+            cursor = cursor.next(previous.get(previous.size() - 1));
+        }
+
+        CountQueryCache countQueryCache = data.getBean(CountQueryCache.class);
+        customImplSearchPageComplex();
+        if (countQueryCache.size() > 0) {
+            throw new IllegalStateException("CountQueryCache must be disabled (querydsl.count-cache.max-size=0)");
+        }
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> customImplSearchPageSimple() {
+        return memberRepository.searchPageSimple(condition, pageRequest);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> customImplSearchPageComplex() {
+        return memberRepository.searchPageComplex(condition, pageRequest);
+    }
+
+    @Benchmark
+    public Slice<MemberTeamDto> customImplSearchSlice() {
+        return memberRepository.searchSlice(condition, pageRequest);
+    }
+
+    @Benchmark
+    public Slice<MemberTeamDto> customImplSearchKeyset() {
+        return memberRepository.searchKeyset(condition, cursor, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> repositoryImplSearchPageSimple() {
+        return memberRepositoryImpl.searchPageSimple(condition, pageRequest);
+    }
+
+    @Benchmark
+    public Page<Member> testRepositoryApplyPaginationComplex() {
+        return memberTestRepository.applyPaginationComplex(ageRangeCondition, pageRequest);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> testRepositorySingleQuery() {
+        return memberTestRepository.searchPageMemberTeam(ageRangeCondition, sortedPageRequest, PagingStrategy.SINGLE_QUERY);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> testRepositoryDeferredJoin() {
+        return memberTestRepository.searchPageMemberTeam(ageRangeCondition, sortedPageRequest, PagingStrategy.DEFERRED_JOIN);
+    }
+}
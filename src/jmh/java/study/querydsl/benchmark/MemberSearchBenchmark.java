@@ -0,0 +1,92 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberQueryRepository;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.impl.MemberRepositoryImpl;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 페이징 없는 검색 구현체 비교 (같은 teamName, age 조건)
+ * searchByBuilder 는 age 조건을 goe/loe 로, 나머지는 ageBetween(ageGoe 두 번)으로 적용하므로
+ * ageGoe = ageLoe = teamB 의 최대 나이로 지정해야 모든 구현체가 같은 결과를 반환한다.
+ * MemberBulkLoader 기준 teamB 는 i % 10 == 1 인 회원, 나이는 i % 100 : 최대 91, 전체의 1%
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberSearchBenchmark {
+
+    private static final String TEAM_NAME = "teamB";
+    private static final int MAX_AGE_OF_TEAM = 91;
+
+    private MemberJpaRepository memberJpaRepository;
+    private MemberQueryRepository memberQueryRepository;
+    private MemberRepository memberRepository;
+    private MemberRepositoryImpl memberRepositoryImpl;
+
+    private MemberSearchCondition condition;
+
+    @Setup(Level.Trial)
+    public void setUp(MemberDataState data) {
+        memberJpaRepository = data.getBean(MemberJpaRepository.class);
+        memberQueryRepository = data.getBean(MemberQueryRepository.class);
+        // MemberRepository 의 custom 메서드는 MemberRepositoryCustomImpl 로 연결된다.
+        memberRepository = data.getBean(MemberRepository.class);
+        memberRepositoryImpl = data.createBean(MemberRepositoryImpl.class);
+
+        condition = new MemberSearchCondition();
+        condition.setTeamName(TEAM_NAME);
+        condition.setAgeGoe(MAX_AGE_OF_TEAM);
+        condition.setAgeLoe(MAX_AGE_OF_TEAM);
+
+        // 결과 건수가 다르면 처리량을 비교할 수 없다.
+        int expected = memberJpaRepositorySearch().size();
+        List<Integer> sizes = List.of(
+                expected,
+                memberJpaRepositorySearchByBuilder().size(),
+                memberQueryRepositorySearch().size(),
+                memberRepositoryCustomImplSearch().size(),
+                memberRepositoryImplSearch().size());
+        if (expected == 0 || sizes.stream().anyMatch(size -> size != expected)) {
+            throw new IllegalStateException("search variants return different result sizes : " + sizes);
+        }
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> memberJpaRepositorySearch() {
+        return memberJpaRepository.search(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> memberJpaRepositorySearchByBuilder() {
+        return memberJpaRepository.searchByBuilder(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> memberQueryRepositorySearch() {
+        return memberQueryRepository.search(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> memberRepositoryCustomImplSearch() {
+        return memberRepository.search(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> memberRepositoryImplSearch() {
+        return memberRepositoryImpl.search(condition);
+    }
+}
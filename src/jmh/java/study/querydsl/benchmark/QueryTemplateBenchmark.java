@@ -0,0 +1,53 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberTestRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 검색(goe/loe 조건)을 매번 조립/직렬화하는 경우와 컴파일된 템플릿에 바인딩만 하는 경우 비교
+ * 결과가 한 건인 username 검색이라 DB 보다 쿼리 생성 비용이 잘 드러난다. (-prof gc 로 할당량도 비교)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class QueryTemplateBenchmark {
+
+    private MemberJpaRepository memberJpaRepository;
+    private MemberTestRepository memberTestRepository;
+
+    private MemberSearchCondition condition;
+
+    @Setup(Level.Trial)
+    public void setUp(MemberDataState data) {
+        memberJpaRepository = data.getBean(MemberJpaRepository.class);
+        memberTestRepository = data.getBean(MemberTestRepository.class);
+
+        condition = new MemberSearchCondition();
+        condition.setUsername("member" + (data.memberCount / 2));
+        condition.setTeamName("teamB");
+        condition.setAgeLoe(100);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> dynamicQuery() {
+        return memberJpaRepository.searchByBuilder(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> compiledTemplate() {
+        return memberTestRepository.searchByTemplate(condition);
+    }
+}
@@ -0,0 +1,112 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.CacheStatsDto;
+import study.querydsl.dto.SqlLogStatusDto;
+import study.querydsl.support.CountQueryCache;
+import study.querydsl.support.QueryTemplateCache;
+import study.querydsl.support.SampledSqlLogger;
+import study.querydsl.support.SearchResultCache;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 운영 확인용 endpoint
+ */
+@RestController
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final CountQueryCache countQueryCache;
+    private final QueryTemplateCache queryTemplateCache;
+    private final SampledSqlLogger sampledSqlLogger;
+    private final EntityManagerFactory entityManagerFactory;
+    private final SearchResultCache searchResultCache;
+
+    @GetMapping("/admin/count-cache")
+    public CacheStatsDto countCacheStats() {
+        return new CacheStatsDto("count",
+                countQueryCache.size(),
+                countQueryCache.getHitCount(),
+                countQueryCache.getMissCount());
+    }
+
+    @GetMapping("/admin/query-template-cache")
+    public CacheStatsDto queryTemplateCacheStats() {
+        return new CacheStatsDto("queryTemplate",
+                queryTemplateCache.size(),
+                queryTemplateCache.getHitCount(),
+                queryTemplateCache.getMissCount());
+    }
+
+    /**
+     * Hibernate 2차 캐시 region 별 통계 (hibernate.generate_statistics)
+     */
+    @GetMapping("/admin/second-level-cache")
+    public List<CacheStatsDto> secondLevelCacheStats() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<CacheStatsDto> result = new ArrayList<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(region);
+            if (regionStatistics != null) {
+                result.add(new CacheStatsDto(region,
+                        regionStatistics.getElementCountInMemory(),
+                        regionStatistics.getHitCount(),
+                        regionStatistics.getMissCount()));
+            }
+        }
+        return result;
+    }
+
+    @GetMapping("/admin/search-cache")
+    public List<CacheStatsDto> searchCacheStats() {
+        List<CacheStatsDto> result = new ArrayList<>();
+        for (String name : searchResultCache.getSwitches().keySet()) {
+            result.add(new CacheStatsDto(name,
+                    searchResultCache.size(name),
+                    searchResultCache.getHitCount(name),
+                    searchResultCache.getMissCount(name)));
+        }
+        return result;
+    }
+
+    /**
+     * endpoint 별 검색 결과 캐시 사용 여부 변경 ex) PUT /admin/search-cache?name=v1-members&enabled=false
+     */
+    @PutMapping("/admin/search-cache")
+    public Map<String, Boolean> changeSearchCache(@RequestParam String name, @RequestParam boolean enabled) {
+        searchResultCache.setEnabled(name, enabled);
+        return searchResultCache.getSwitches();
+    }
+
+    @GetMapping("/admin/sql-log")
+    public SqlLogStatusDto sqlLogStatus() {
+        return SqlLogStatusDto.of(sampledSqlLogger);
+    }
+
+    /**
+     * SQL 로그 모드 변경 ex) PUT /admin/sql-log?mode=ALL , ?mode=SAMPLED&sampleRate=10
+     * 지정하지 않은 값은 현재 설정을 유지한다.
+     */
+    @PutMapping("/admin/sql-log")
+    public SqlLogStatusDto changeSqlLog(@RequestParam(required = false) SampledSqlLogger.Mode mode,
+                                        @RequestParam(required = false) Integer sampleRate,
+                                        @RequestParam(required = false) Long slowThresholdMillis) {
+        sampledSqlLogger.configure(
+                mode != null ? mode : sampledSqlLogger.getMode(),
+                sampleRate != null ? sampleRate : sampledSqlLogger.getSampleRate(),
+                slowThresholdMillis != null ? Duration.ofMillis(slowThresholdMillis) : sampledSqlLogger.getSlowThreshold());
+        return SqlLogStatusDto.of(sampledSqlLogger);
+    }
+}
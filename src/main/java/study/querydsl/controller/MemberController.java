@@ -1,16 +1,36 @@
 package study.querydsl.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberCursorResponse;
+import study.querydsl.dto.MemberPageResponse;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSearchConditionKey;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.repository.MemberJpaRepository;
 import study.querydsl.repository.MemberRepository;
+import study.querydsl.support.SearchBulkhead;
+import study.querydsl.support.SearchETag;
+import study.querydsl.support.SearchResultCache;
+import study.querydsl.support.SingleFlight;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequiredArgsConstructor
@@ -18,19 +38,159 @@ public class MemberController {
 
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
+    private final SearchResultCache searchResultCache;
+    private final SearchBulkhead searchBulkhead;
+    private final SingleFlight singleFlight;
+    private final SearchETag searchETag;
 
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    /**
+     * 같은 조건의 반복 조회는 SearchResultCache 에서 (캐시 이름 : v1-members)
+     * 캐시에 없을 때 동시에 들어온 같은 조회는 한 번만 실행 (SingleFlight)
+     * Accept: application/x-member-columnar 이면 JSON 대신 컬럼 단위 바이너리로 응답 (MemberColumnarHttpMessageConverter)
+     * If-None-Match 의 ETag 가 그대로면 DB 조회 없이 304 (SearchETag)
+     */
     @GetMapping("/v1/members")
+    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition, WebRequest request) {
+        if (searchETag.checkNotModified(request, "v1-members", MemberSearchConditionKey.of(condition))) {
+            return null;
+        }
+        return searchMemberV1(condition);
+    }
+
     public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
-        return memberJpaRepository.search(condition);
+        MemberSearchConditionKey key = MemberSearchConditionKey.of(condition);
+        return searchResultCache.get("v1-members", key,
+                () -> singleFlight.execute("v1-members", key,
+                        () -> Collections.unmodifiableList(memberJpaRepository.search(condition))),
+                List::size);
+    }
+
+    /**
+     * async 버전 : 검색은 SearchBulkhead 스레드에서 실행하고 Tomcat worker 스레드는 바로 반환한다.
+     * bulkhead 큐가 가득 차면 503
+     */
+    @GetMapping("/v1/async/members")
+    public CompletableFuture<List<MemberTeamDto>> searchMemberV1Async(MemberSearchCondition condition, WebRequest request) {
+        // 304 판단은 요청 스레드에서
+        if (searchETag.checkNotModified(request, "v1-members", MemberSearchConditionKey.of(condition))) {
+            return null;
+        }
+        return searchBulkhead.submit(() -> searchMemberV1(condition));
+    }
+
+    /**
+     * 전체 export : 결과를 List 나 JSON 배열로 모으지 않고 row 한 건마다 한 줄(NDJSON)씩 응답에 바로 쓴다.
+     */
+    @GetMapping("/v1/members/export")
+    public ResponseEntity<StreamingResponseBody> exportMembers(MemberSearchCondition condition) {
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            memberJpaRepository.stream(condition, row -> {
+                try {
+                    generator.writeObject(row);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.close();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_NDJSON)
+                .body(body);
     }
 
+    /**
+     * 응답은 PageImpl 대신 MemberPageResponse : 전용 serializer 로 응답 스트림에 바로 쓴다.
+     */
     @GetMapping("/v2/simple/members")
-    public Page<MemberTeamDto> searchSimpleMember(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageSimple(condition, pageable);
+    public MemberPageResponse searchSimpleMember(MemberSearchCondition condition, Pageable pageable, WebRequest request) {
+        if (searchETag.checkNotModified(request, "v2-simple-members", Arrays.asList(MemberSearchConditionKey.of(condition), pageable))) {
+            return null;
+        }
+        return searchSimpleMember(condition, pageable);
     }
 
+    public MemberPageResponse searchSimpleMember(MemberSearchCondition condition, Pageable pageable) {
+        return MemberPageResponse.of(singleFlight.execute("v2-simple-members", Arrays.asList(MemberSearchConditionKey.of(condition), pageable),
+                () -> memberRepository.searchPageSimple(condition, pageable)));
+    }
+
+    /**
+     * 같은 조건, 같은 페이지의 반복 조회는 SearchResultCache 에서 (캐시 이름 : v2-complex-members)
+     * 대시보드 새로고침처럼 동시에 몰린 같은 조회는 content / count query 를 한 번만 실행 (SingleFlight)
+     */
     @GetMapping("/v2/complex/members")
-    public Page<MemberTeamDto> searchComplexMember(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageComplex(condition, pageable);
+    public MemberPageResponse searchComplexMember(MemberSearchCondition condition, Pageable pageable, WebRequest request) {
+        if (searchETag.checkNotModified(request, "v2-complex-members", Arrays.asList(MemberSearchConditionKey.of(condition), pageable))) {
+            return null;
+        }
+        return searchComplexMember(condition, pageable);
+    }
+
+    public MemberPageResponse searchComplexMember(MemberSearchCondition condition, Pageable pageable) {
+        List<Object> key = Arrays.asList(MemberSearchConditionKey.of(condition), pageable);
+        return searchResultCache.get("v2-complex-members", key,
+                () -> singleFlight.execute("v2-complex-members", key,
+                        () -> MemberPageResponse.of(memberRepository.searchPageComplex(condition, pageable))),
+                MemberPageResponse::getNumberOfElements);
+    }
+
+    @GetMapping("/v2/async/simple/members")
+    public CompletableFuture<MemberPageResponse> searchSimpleMemberAsync(MemberSearchCondition condition, Pageable pageable, WebRequest request) {
+        if (searchETag.checkNotModified(request, "v2-simple-members", Arrays.asList(MemberSearchConditionKey.of(condition), pageable))) {
+            return null;
+        }
+        return searchBulkhead.submit(() -> searchSimpleMember(condition, pageable));
+    }
+
+    /**
+     * 느린 count query 가 worker 스레드를 잡고 있지 않도록 bulkhead 에서 실행
+     */
+    @GetMapping("/v2/async/complex/members")
+    public CompletableFuture<MemberPageResponse> searchComplexMemberAsync(MemberSearchCondition condition, Pageable pageable, WebRequest request) {
+        if (searchETag.checkNotModified(request, "v2-complex-members", Arrays.asList(MemberSearchConditionKey.of(condition), pageable))) {
+            return null;
+        }
+        return searchBulkhead.submit(() -> searchComplexMember(condition, pageable));
+    }
+
+    /**
+     * 무한 스크롤 용 : totalElements 없이 다음 페이지 여부만 내려준다. (count query 생략)
+     */
+    @GetMapping("/v2/slice/members")
+    public Slice<MemberTeamDto> searchSliceMember(MemberSearchCondition condition, Pageable pageable, WebRequest request) {
+        if (searchETag.checkNotModified(request, "v2-slice-members", Arrays.asList(MemberSearchConditionKey.of(condition), pageable))) {
+            return null;
+        }
+        return singleFlight.execute("v2-slice-members", Arrays.asList(MemberSearchConditionKey.of(condition), pageable),
+                () -> memberRepository.searchSlice(condition, pageable));
+    }
+
+    /**
+     * keyset 페이징 : 첫 요청은 size, sort 만 받고 이후로는 응답의 nextCursor 를 그대로 넘긴다.
+     * 커서에 정렬 조건이 들어있기 때문에 두 번째 요청부터 sort 파라미터는 무시된다.
+     */
+    @GetMapping("/v3/members")
+    public MemberCursorResponse searchMemberV3(MemberSearchCondition condition,
+                                               @RequestParam(required = false) String cursor,
+                                               Pageable pageable) {
+        MemberCursor memberCursor = cursor == null
+                ? MemberCursor.first(pageable.getSort())
+                : MemberCursor.decode(cursor);
+
+        Slice<MemberTeamDto> result = memberRepository.searchKeyset(condition, memberCursor, pageable.getPageSize());
+        List<MemberTeamDto> content = result.getContent();
+
+        String nextCursor = result.hasNext()
+                ? memberCursor.next(content.get(content.size() - 1)).encode()
+                : null;
+        return new MemberCursorResponse(content, nextCursor);
     }
 }
@@ -0,0 +1,24 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.repository.TeamQueryRepository;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamQueryRepository teamQueryRepository;
+
+    /**
+     * 팀 목록 + 소속 회원 : 팀 id 순으로 페이징 (sort 파라미터는 사용하지 않는다.)
+     */
+    @GetMapping("/v1/teams")
+    public Page<TeamMembersDto> searchTeams(Pageable pageable) {
+        return teamQueryRepository.findTeamsWithMembers(pageable);
+    }
+}
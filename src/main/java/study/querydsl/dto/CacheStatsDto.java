@@ -0,0 +1,17 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+@Data
+public class CacheStatsDto {
+
+    private final String name;
+    private final long size;
+    private final long hitCount;
+    private final long missCount;
+
+    public double getHitRatio() {
+        long total = hitCount + missCount;
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+}
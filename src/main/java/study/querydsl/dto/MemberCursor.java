@@ -0,0 +1,89 @@
+package study.querydsl.dto;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import study.querydsl.support.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * Keyset(seek) 페이징 커서
+ * 마지막으로 내려준 row의 정렬 키 값과 member_id를 담아서 다음 페이지는 offset 없이 (sortKey, id) > (:last...) 로 찾아간다.
+ * 클라이언트에게는 encode()한 불투명한 문자열로만 내려준다.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class MemberCursor {
+
+    // 정렬 키는 not null 컬럼만 허용 : null이 섞이면 seek 조건에서 row가 누락된다. (username 은 nullable 이라서 제외)
+    private static final Set<String> SORT_PROPERTIES = Set.of("id", "age");
+    private static final String DELIMITER = ":";
+
+    private final String property;
+    private final Sort.Direction direction;
+    private final Long lastId;
+    private final String lastValue;
+
+    /**
+     * 첫 페이지용 커서 : Pageable의 첫 번째 정렬 조건만 사용하고, 없으면 id 오름차순
+     *
+     * @throws InvalidCursorException 지원하지 않는 정렬 조건 (400)
+     */
+    public static MemberCursor first(Sort sort) {
+        Sort.Order order = sort.stream().findFirst().orElse(Sort.Order.asc("id"));
+        if (!SORT_PROPERTIES.contains(order.getProperty())) {
+            throw new InvalidCursorException("Keyset sort property must be one of " + SORT_PROPERTIES);
+        }
+        return new MemberCursor(order.getProperty(), order.getDirection(), null, null);
+    }
+
+    /**
+     * @throws InvalidCursorException 클라이언트가 보낸 커서를 해석할 수 없을 때 (400)
+     */
+    public static MemberCursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] tokens = decoded.split(DELIMITER, 4);
+            if (tokens.length != 4 || !SORT_PROPERTIES.contains(tokens[0])) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            if ("age".equals(tokens[0])) {
+                // seek 조건에서 숫자로 바꾸므로 여기서 미리 검증
+                Integer.parseInt(tokens[3]);
+            }
+            return new MemberCursor(tokens[0], Sort.Direction.valueOf(tokens[1]), Long.valueOf(tokens[2]), tokens[3]);
+        } catch (IllegalArgumentException e) {
+            // Base64, Direction, 숫자 변환 실패 포함 (NumberFormatException 도 IllegalArgumentException)
+            throw new InvalidCursorException("Invalid cursor : " + cursor, e);
+        }
+    }
+
+    public String encode() {
+        String raw = String.join(DELIMITER, property, direction.name(), String.valueOf(lastId), lastValue);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 현재 페이지의 마지막 row로 다음 페이지 커서를 만든다.
+     */
+    public MemberCursor next(MemberTeamDto last) {
+        String value;
+        switch (property) {
+            case "age": value = String.valueOf(last.getAge()); break;
+            default: value = String.valueOf(last.getMemberId());
+        }
+        return new MemberCursor(property, direction, last.getMemberId(), value);
+    }
+
+    public boolean isFirst() {
+        return lastId == null;
+    }
+
+    public boolean isAscending() {
+        return direction.isAscending();
+    }
+}
@@ -0,0 +1,17 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class MemberCursorResponse {
+
+    private final List<MemberTeamDto> content;
+    // 마지막 페이지면 null
+    private final String nextCursor;
+
+    public boolean isHasNext() {
+        return nextCursor != null;
+    }
+}
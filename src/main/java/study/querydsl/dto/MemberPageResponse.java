@@ -0,0 +1,54 @@
+package study.querydsl.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.Getter;
+import org.springframework.data.domain.Page;
+import study.querydsl.support.MemberPageResponseSerializer;
+
+import java.util.List;
+
+/**
+ * /v2 페이징 응답 : PageImpl 을 그대로 내리면 Pageable, Sort 까지 reflection 으로 직렬화하므로
+ * 화면에서 쓰는 값만 남긴다. 필드 이름은 PageImpl 의 JSON 과 같다. (pageable, sort 제외)
+ * 직렬화는 MemberPageResponseSerializer 가 응답 스트림에 바로 쓴다.
+ */
+@Getter
+@JsonSerialize(using = MemberPageResponseSerializer.class)
+public class MemberPageResponse {
+
+    private final List<MemberTeamDto> content;
+    // 0 부터 시작하는 페이지 번호
+    private final int number;
+    private final int size;
+    private final long totalElements;
+    private final int totalPages;
+
+    public MemberPageResponse(List<MemberTeamDto> content, int number, int size, long totalElements, int totalPages) {
+        this.content = content;
+        this.number = number;
+        this.size = size;
+        this.totalElements = totalElements;
+        this.totalPages = totalPages;
+    }
+
+    public static MemberPageResponse of(Page<MemberTeamDto> page) {
+        return new MemberPageResponse(page.getContent(), page.getNumber(), page.getSize(),
+                page.getTotalElements(), page.getTotalPages());
+    }
+
+    public int getNumberOfElements() {
+        return content.size();
+    }
+
+    public boolean isFirst() {
+        return number == 0;
+    }
+
+    public boolean isLast() {
+        return number + 1 >= totalPages;
+    }
+
+    public boolean isEmpty() {
+        return content.isEmpty();
+    }
+}
@@ -1,12 +1,38 @@
 package study.querydsl.dto;
 
 import lombok.Data;
+import org.springframework.util.StringUtils;
+import study.querydsl.support.SearchShape;
+
+import java.util.StringJoiner;
 
 @Data
-public class MemberSearchCondition {
+public class MemberSearchCondition implements SearchShape {
     // 회원명, 팀명, 나이(ageGoe, ageLoe)
     private String username;
     private String teamName;
     private Integer ageGoe = 0;
     private Integer ageLoe = 0;
+
+    /**
+     * 메트릭 태그용 : 값이 있는 조건 이름만 ex) username+ageGoe+ageLoe, 조건이 없으면 empty
+     * ageGoe, ageLoe 는 기본값이 0 이라서 0 이하는 조건이 없는 것으로 본다.
+     */
+    @Override
+    public String shape() {
+        StringJoiner shape = new StringJoiner("+").setEmptyValue("empty");
+        if (StringUtils.hasText(username)) {
+            shape.add("username");
+        }
+        if (StringUtils.hasText(teamName)) {
+            shape.add("teamName");
+        }
+        if (ageGoe != null && ageGoe > 0) {
+            shape.add("ageGoe");
+        }
+        if (ageLoe != null && ageLoe > 0) {
+            shape.add("ageLoe");
+        }
+        return shape.toString();
+    }
 }
@@ -0,0 +1,30 @@
+package study.querydsl.dto;
+
+import lombok.Value;
+import org.springframework.util.StringUtils;
+
+/**
+ * MemberSearchCondition 의 정규화된 형태 : 캐시 키 용도
+ * 검색 조건에서 StringUtils.hasText 로 걸러내는 것과 같게 공백/빈 문자열은 null 로 본다.
+ * 나머지 값은 eq(username), eq(teamName) 에 그대로 들어가므로 trim 하지 않는다. ex) " teamA" 와 "teamA" 는 다른 키
+ */
+@Value
+public class MemberSearchConditionKey {
+
+    String username;
+    String teamName;
+    Integer ageGoe;
+    Integer ageLoe;
+
+    public static MemberSearchConditionKey of(MemberSearchCondition condition) {
+        return new MemberSearchConditionKey(
+                normalize(condition.getUsername()),
+                normalize(condition.getTeamName()),
+                condition.getAgeGoe(),
+                condition.getAgeLoe());
+    }
+
+    private static String normalize(String value) {
+        return StringUtils.hasText(value) ? value : null;
+    }
+}
@@ -0,0 +1,26 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+import study.querydsl.support.SampledSqlLogger;
+
+@Data
+public class SqlLogStatusDto {
+
+    private final SampledSqlLogger.Mode mode;
+    private final int sampleRate;
+    private final long slowThresholdMillis;
+    private final long sampledCount;
+    private final long droppedCount;
+    private final long loggedCount;
+    private final int bufferedCount;
+
+    public static SqlLogStatusDto of(SampledSqlLogger logger) {
+        return new SqlLogStatusDto(logger.getMode(),
+                logger.getSampleRate(),
+                logger.getSlowThreshold().toMillis(),
+                logger.getSampledCount(),
+                logger.getDroppedCount(),
+                logger.getLoggedCount(),
+                logger.getBufferedCount());
+    }
+}
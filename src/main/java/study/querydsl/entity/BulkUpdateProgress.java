@@ -0,0 +1,46 @@
+package study.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.LocalDateTime;
+
+/**
+ * 구간별 bulk update 진행 상황 (ChunkedUpdateExecutor)
+ * 각 구간의 update 와 같은 트랜잭션에서 갱신되므로, 중단된 작업은 마지막으로 커밋된 구간 다음부터 이어서 실행된다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class BulkUpdateProgress {
+
+    @Id
+    private String jobName;
+    // 처리가 끝난 마지막 id
+    private long lastId;
+    // 작업 시작 시점의 최대 id : 이후에 추가된 row 는 대상이 아니다.
+    private long maxId;
+    private long updatedRows;
+    private boolean completed;
+    private LocalDateTime updatedAt;
+
+    public BulkUpdateProgress(String jobName, long lastId, long maxId) {
+        this.jobName = jobName;
+        this.lastId = lastId;
+        this.maxId = maxId;
+        this.completed = lastId >= maxId;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public void advance(long lastId, long updatedRows) {
+        this.lastId = lastId;
+        this.updatedRows += updatedRows;
+        this.completed = lastId >= maxId;
+        this.updatedAt = LocalDateTime.now();
+    }
+}
@@ -1,10 +1,18 @@
 package study.querydsl.entity;
 
 import lombok.*;
+import study.querydsl.support.EntityChangeListener;
 
 import javax.persistence.*;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_age", columnList = "age"),
+        // team_id 로 찾고 member_id 순으로 정렬/seek : teamName 검색, 팀별 회원 조회 (team_id 단일 인덱스를 겸한다.)
+        @Index(name = "idx_member_team_id", columnList = "team_id, member_id")
+})
+@EntityListeners(EntityChangeListener.class)
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
@@ -12,7 +20,9 @@ import javax.persistence.*;
 public class Member {
 
     @Id
-    @GeneratedValue
+    // pooled sequence : allocationSize 만큼 id 를 미리 할당받아서 insert 마다 sequence 를 조회하지 않는다.
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq")
+    @SequenceGenerator(name = "member_seq", sequenceName = "member_seq", allocationSize = 1000)
     @Column(name = "member_id")
     private Long id;
     private String username;
@@ -1,12 +1,22 @@
 package study.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import study.querydsl.support.EntityChangeListener;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name"))
+// 2차 캐시 : 작고 거의 바뀌지 않는 엔티티라 Member.team 지연 로딩 / em.find 가 DB 대신 캐시에서 조회된다.
+// members 컬렉션은 캐시하지 않는다. Member 는 캐시 대상이 아니라서 캐시된 id 목록으로 회원을 한 건씩 다시 조회하게 되고,
+// 회원의 팀 변경(bulk update 포함)마다 컬렉션 캐시도 무효화해야 하기 때문
+@javax.persistence.Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team")
+@EntityListeners(EntityChangeListener.class)
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
@@ -14,7 +24,9 @@ import java.util.List;
 public class Team {
 
     @Id
-    @GeneratedValue
+    // pooled sequence : allocationSize 만큼 id 를 미리 할당받아서 insert 마다 sequence 를 조회하지 않는다.
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq")
+    @SequenceGenerator(name = "team_seq", sequenceName = "team_seq", allocationSize = 50)
     private Long id;
     private String name;
 
@@ -0,0 +1,18 @@
+package study.querydsl.loader;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+public class BulkLoadResult {
+
+    private final long teamCount;
+    private final long memberCount;
+    private final Duration elapsed;
+
+    public double getRowsPerSecond() {
+        long millis = Math.max(1, elapsed.toMillis());
+        return (teamCount + memberCount) * 1000.0 / millis;
+    }
+}
@@ -0,0 +1,204 @@
+package study.querydsl.loader;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.dml.UpdateClause;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.BulkUpdateProgress;
+import study.querydsl.support.EntityChangePublisher;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.LockTimeoutException;
+import javax.persistence.PessimisticLockException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 대용량 테이블의 bulk update 를 id 구간으로 나눠서 실행
+ * - 구간(chunkSize 개의 id)마다 별도의 짧은 트랜잭션 : 락을 오래 잡지 않고 undo log 도 구간 크기로 제한된다.
+ * - 구간 update 와 진행 상황(BulkUpdateProgress)을 같은 트랜잭션에서 커밋하므로 중단 후 다시 실행하면 이어서 처리한다.
+ * - maxRowsPerSecond 를 넘지 않도록 구간 사이에 쉰다. (0 이면 제한 없음)
+ * - 구간 트랜잭션은 진행 상황 row 를 먼저 잠그고 잠근 lastId 로 구간을 정한다.
+ *   같은 jobName 으로 동시에 실행해도(다른 인스턴스 포함) 각 구간은 한 번만 적용되고, 밀린 쪽은 멈춘다.
+ * 이미 시작된 트랜잭션 안에서 호출해도 구간마다 새 트랜잭션(REQUIRES_NEW)으로 실행된다.
+ */
+@Slf4j
+@Component
+public class ChunkedUpdateExecutor {
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityChangePublisher entityChangePublisher;
+    private final long chunkSize;
+    private final long maxRowsPerSecond;
+
+    public ChunkedUpdateExecutor(EntityManager em,
+                                 PlatformTransactionManager transactionManager,
+                                 EntityChangePublisher entityChangePublisher,
+                                 @Value("${querydsl.chunked-update.chunk-size:10000}") long chunkSize,
+                                 @Value("${querydsl.chunked-update.max-rows-per-second:0}") long maxRowsPerSecond) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.entityChangePublisher = entityChangePublisher;
+        this.chunkSize = chunkSize;
+        this.maxRowsPerSecond = maxRowsPerSecond;
+    }
+
+    /**
+     * jobName 의 작업을 처음부터 또는 중단된 구간부터 실행한다. 이미 완료된 작업이면 아무것도 하지 않는다.
+     * 스레드가 interrupt 되면 진행 중인 구간까지만 커밋하고 멈춘다.
+     *
+     * @param id 구간을 나눌 id (단조 증가하는 Long)
+     * @param where 구간 조건에 더해질 update 조건 (없으면 null)
+     * @param set 변경할 값 ex) clause -> clause.set(member.age, member.age.add(1))
+     */
+    public ChunkedUpdateResult execute(String jobName,
+                                       EntityPath<?> path,
+                                       NumberPath<Long> id,
+                                       @Nullable Predicate where,
+                                       Consumer<UpdateClause<JPAUpdateClause>> set) {
+        long start = System.nanoTime();
+        BulkUpdateProgress progress;
+        try {
+            progress = transactionTemplate.execute(status -> startOrResume(jobName, path, id));
+        } catch (DataIntegrityViolationException e) {
+            // 동시에 시작한 다른 실행이 먼저 진행 상황을 만들었다.
+            progress = transactionTemplate.execute(status -> em.find(BulkUpdateProgress.class, jobName));
+        }
+
+        int chunks = 0;
+        long updatedRows = 0;
+        long lastId = progress.getLastId();
+        boolean completed = progress.isCompleted();
+
+        while (!completed) {
+            if (Thread.currentThread().isInterrupted()) {
+                log.info("chunked update interrupted : job={}, lastId={}", jobName, lastId);
+                break;
+            }
+
+            long expectedLastId = lastId;
+            BulkUpdateProgress advanced;
+            try {
+                advanced = transactionTemplate.execute(status -> applyChunk(jobName, path, id, where, set, expectedLastId));
+            } catch (PessimisticLockException | LockTimeoutException e) {
+                advanced = null;
+            }
+            if (advanced == null) {
+                // 다른 실행(다른 스레드/인스턴스)이 같은 작업을 진행 중 : 같은 구간을 두 번 적용하지 않도록 여기서 멈춘다.
+                log.info("chunked update taken over by another runner : job={}, lastId={}", jobName, lastId);
+                break;
+            }
+            entityChangePublisher.changed(path.getType());
+
+            chunks++;
+            // 잠근 lastId 가 이 실행이 본 값과 같았으므로 누적 건수의 차이가 이번 구간의 건수
+            updatedRows += advanced.getUpdatedRows() - progress.getUpdatedRows();
+            progress = advanced;
+            lastId = advanced.getLastId();
+            completed = advanced.isCompleted();
+
+            if (!completed && !throttle(updatedRows, start)) {
+                break;
+            }
+        }
+
+        ChunkedUpdateResult result = new ChunkedUpdateResult(jobName, chunks, updatedRows, lastId, completed,
+                Duration.ofNanos(System.nanoTime() - start));
+        log.info("chunked update {} : job={}, chunks={}, rows={}, lastId={}, {} rows/sec",
+                completed ? "finished" : "stopped", jobName, chunks, updatedRows, lastId,
+                String.format("%.0f", result.getRowsPerSecond()));
+        return result;
+    }
+
+    /**
+     * 완료된 작업을 다시 실행할 수 있도록 진행 상황을 지운다.
+     */
+    public void reset(String jobName) {
+        transactionTemplate.executeWithoutResult(status -> {
+            BulkUpdateProgress progress = em.find(BulkUpdateProgress.class, jobName);
+            if (progress != null) {
+                em.remove(progress);
+            }
+        });
+    }
+
+    /**
+     * 진행 상황 row 를 잠그고(select ... for update) 잠근 lastId 다음 구간을 update 한다.
+     * 잠근 lastId 가 이 실행이 마지막으로 본 값과 다르면 다른 실행이 이미 진행한 것이므로 update 하지 않고 null
+     */
+    @Nullable
+    private BulkUpdateProgress applyChunk(String jobName,
+                                          EntityPath<?> path,
+                                          NumberPath<Long> id,
+                                          @Nullable Predicate where,
+                                          Consumer<UpdateClause<JPAUpdateClause>> set,
+                                          long expectedLastId) {
+        BulkUpdateProgress progress = em.find(BulkUpdateProgress.class, jobName, LockModeType.PESSIMISTIC_WRITE);
+        if (progress == null || progress.isCompleted() || progress.getLastId() != expectedLastId) {
+            return null;
+        }
+
+        long from = progress.getLastId() + 1;
+        long to = progress.getMaxId() - from < chunkSize ? progress.getMaxId() : from + chunkSize - 1;
+        JPAUpdateClause clause = new JPAUpdateClause(em, path);
+        set.accept(clause);
+        long count = clause.where(id.between(from, to), where).execute();
+
+        progress.advance(to, count);
+        return progress;
+    }
+
+    private BulkUpdateProgress startOrResume(String jobName, EntityPath<?> path, NumberPath<Long> id) {
+        BulkUpdateProgress progress = em.find(BulkUpdateProgress.class, jobName);
+        if (progress != null) {
+            return progress;
+        }
+
+        Tuple range = new JPAQueryFactory(em)
+                .select(id.min(), id.max())
+                .from(path)
+                .fetchOne();
+        Long minId = range.get(id.min());
+        Long maxId = range.get(id.max());
+
+        progress = minId == null
+                ? new BulkUpdateProgress(jobName, 0, 0)
+                : new BulkUpdateProgress(jobName, minId - 1, maxId);
+        em.persist(progress);
+        return progress;
+    }
+
+    // 지금까지 처리한 row 수가 maxRowsPerSecond 를 넘지 않을 때까지 대기, interrupt 되면 false
+    private boolean throttle(long updatedRows, long start) {
+        if (maxRowsPerSecond <= 0) {
+            return true;
+        }
+        long expectedNanos = TimeUnit.SECONDS.toNanos(updatedRows) / maxRowsPerSecond;
+        long waitNanos = expectedNanos - (System.nanoTime() - start);
+        if (waitNanos <= 0) {
+            return true;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
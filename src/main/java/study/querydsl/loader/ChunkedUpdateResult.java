@@ -0,0 +1,22 @@
+package study.querydsl.loader;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+public class ChunkedUpdateResult {
+
+    private final String jobName;
+    // 이번 실행에서 처리한 구간 수 / row 수
+    private final int chunks;
+    private final long updatedRows;
+    private final long lastId;
+    private final boolean completed;
+    private final Duration elapsed;
+
+    public double getRowsPerSecond() {
+        long millis = Math.max(1, elapsed.toMillis());
+        return updatedRows * 1000.0 / millis;
+    }
+}
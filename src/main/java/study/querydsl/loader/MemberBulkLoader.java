@@ -0,0 +1,103 @@
+package study.querydsl.loader;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.EntityChangePublisher;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 부하 테스트 / 재색인용 대량 데이터 적재
+ * - hibernate.jdbc.batch_size, order_inserts 로 insert 를 JDBC batch 로 묶는다.
+ * - id 는 pooled sequence(allocationSize)로 할당해서 row 마다 sequence 를 조회하지 않는다.
+ * - batchSize 마다 flush/clear 해서 영속성 컨텍스트가 커지지 않게 하고, chunkSize 마다 커밋한다.
+ * - row 마다 EntityChangeEvent 를 보내지 않고 커밋한 chunk 마다 한 번만 보낸다. (캐시 무효화 등)
+ * 이미 시작된 트랜잭션 안에서 호출해도 chunk 마다 새 트랜잭션(REQUIRES_NEW)으로 커밋된다.
+ * flush/clear 도 chunk 트랜잭션의 영속성 컨텍스트에서만 일어나므로 호출한 쪽의 엔티티는 준영속이 되지 않는다.
+ */
+@Slf4j
+@Component
+public class MemberBulkLoader {
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityChangePublisher entityChangePublisher;
+    private final int batchSize;
+    private final int chunkSize;
+
+    public MemberBulkLoader(EntityManager em,
+                            PlatformTransactionManager transactionManager,
+                            EntityChangePublisher entityChangePublisher,
+                            @Value("${querydsl.bulk-load.batch-size:1000}") int batchSize,
+                            @Value("${querydsl.bulk-load.chunk-size:100000}") int chunkSize) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.entityChangePublisher = entityChangePublisher;
+        this.batchSize = batchSize;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * member{i} 회원을 memberCount 명, 팀은 teamCount 개를 만들어서 순서대로 돌아가며 배정한다.
+     */
+    public BulkLoadResult load(long memberCount, int teamCount) {
+        long start = System.nanoTime();
+
+        List<Long> teamIds = entityChangePublisher.suppress(() -> transactionTemplate.execute(status -> insertTeams(teamCount)));
+        entityChangePublisher.changed(Team.class);
+        for (long from = 0; from < memberCount; from += chunkSize) {
+            long chunkStart = from;
+            long chunkEnd = Math.min(from + chunkSize, memberCount);
+            entityChangePublisher.suppress(() -> transactionTemplate.execute(status -> insertMembers(chunkStart, chunkEnd, teamIds)));
+            entityChangePublisher.changed(Member.class);
+        }
+
+        BulkLoadResult result = new BulkLoadResult(teamCount, memberCount, Duration.ofNanos(System.nanoTime() - start));
+        log.info("bulk load finished : teams={}, members={}, elapsed={}ms, {} rows/sec",
+                result.getTeamCount(), result.getMemberCount(), result.getElapsed().toMillis(),
+                String.format("%.0f", result.getRowsPerSecond()));
+        return result;
+    }
+
+    private List<Long> insertTeams(int teamCount) {
+        List<Long> teamIds = new ArrayList<>(teamCount);
+        for (int i = 0; i < teamCount; i++) {
+            Team team = new Team(teamName(i));
+            em.persist(team);
+            teamIds.add(team.getId());
+        }
+        return teamIds;
+    }
+
+    private long insertMembers(long from, long to, List<Long> teamIds) {
+        for (long i = from; i < to; i++) {
+            // 연관관계 편의 메서드를 쓰면 team.members 컬렉션이 로딩/누적되므로 FK 만 세팅한다.
+            Member member = new Member("member" + i, (int) (i % 100));
+            if (!teamIds.isEmpty()) {
+                member.setTeam(em.getReference(Team.class, teamIds.get((int) (i % teamIds.size()))));
+            }
+            em.persist(member);
+
+            if ((i - from + 1) % batchSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        return to - from;
+    }
+
+    // teamA, teamB ... teamZ, team26, team27 ...
+    private static String teamName(int index) {
+        return index < 26 ? "team" + (char) ('A' + index) : "team" + index;
+    }
+}
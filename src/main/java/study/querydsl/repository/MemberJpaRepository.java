@@ -1,18 +1,28 @@
 package study.querydsl.repository;
 
+import com.mysema.commons.lang.CloseableIterator;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.annotations.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.support.QueryTemplate;
+import study.querydsl.support.QueryTemplateCache;
+import study.querydsl.support.ResultSizeGuard;
+import study.querydsl.support.TemplateParameters;
 
 import javax.persistence.EntityManager;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.*;
@@ -21,12 +31,27 @@ import static study.querydsl.entity.QTeam.*;
 @Repository
 public class MemberJpaRepository {
 
+    // 스트리밍 조회 시 JDBC 드라이버가 한 번에 가져오는 row 수
+    private static final int STREAM_FETCH_SIZE = 1000;
+    // 스트리밍 조회 중 영속성 컨텍스트를 비우는 주기
+    private static final int STREAM_CLEAR_INTERVAL = 10_000;
+
+    // search 템플릿 바인딩 파라미터
+    private static final Param<String> USERNAME = new Param<>(String.class, "username");
+    private static final Param<String> TEAM_NAME = new Param<>(String.class, "teamName");
+    private static final Param<Integer> AGE_LOE = new Param<>(Integer.class, "ageLoe");
+    private static final Param<Integer> AGE_GOE = new Param<>(Integer.class, "ageGoe");
+
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final ResultSizeGuard resultSizeGuard;
+    private final QueryTemplateCache queryTemplateCache;
 
-    public MemberJpaRepository(EntityManager em) {
+    public MemberJpaRepository(EntityManager em, ResultSizeGuard resultSizeGuard, QueryTemplateCache queryTemplateCache) {
         this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.resultSizeGuard = resultSizeGuard;
+        this.queryTemplateCache = queryTemplateCache;
     }
 
     public void save(Member member) {
@@ -84,7 +109,8 @@ public class MemberJpaRepository {
             builder.and(member.age.loe(condition.getAgeLoe()));
         }
 
-        return queryFactory
+        // 조건이 없거나 결과가 max-rows 를 넘으면 SearchLimitExceededException
+        return resultSizeGuard.fetch("MemberJpaRepository.searchByBuilder", condition, joinTeam(queryFactory
                 .select(new QMemberTeamDto(
                     member.id.as("memberId"),
                     member.username,
@@ -92,32 +118,92 @@ public class MemberJpaRepository {
                     team.id.as("teamId"),
                     team.name.as("teamName")
                 ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(builder)
-                .fetch();
+                .from(member), condition)
+                .where(builder));
     }
 
     /**
      * where절 파라미터 활용
+     * readOnly : 라우팅이 켜져 있으면 replica 에서 조회 (ReadWriteRoutingDataSource)
+     * 조건이 없거나 결과가 max-rows 를 넘으면 SearchLimitExceededException : 전체 조회는 stream 을 사용할 것 (ResultSizeGuard)
+     * /v1/members 에서 호출되므로 조건 모양별로 컴파일된 템플릿(QueryTemplateCache)에 값만 바인딩해서 실행한다.
      */
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
+        TemplateParameters params = new TemplateParameters()
+                .set(USERNAME, StringUtils.hasText(condition.getUsername()) ? condition.getUsername() : null)
+                .set(TEAM_NAME, StringUtils.hasText(condition.getTeamName()) ? condition.getTeamName() : null)
+                .set(AGE_LOE, condition.getAgeLoe())
+                .set(AGE_GOE, condition.getAgeGoe());
+
+        // query 는 템플릿이 없을 때만 실행되므로 값이 아니라 조건 유무(params.has, teamName join)로만 모양을 정한다.
+        QueryTemplate<MemberTeamDto> template = queryTemplateCache.get("MemberJpaRepository.search", params.shape(),
+                () -> QueryTemplate.compile(em, joinTeam(queryFactory
+                        .select(new QMemberTeamDto(
+                            member.id.as("memberId"),
+                            member.username.as("username"),
+                            member.age.as("age"),
+                            team.id.as("teamId"),
+                            team.name.as("teamName")
+                        ))
+                        .from(member), condition)
+                        .where(
+                                params.has(USERNAME) ? member.username.eq(USERNAME) : null,
+                                params.has(TEAM_NAME) ? team.name.eq(TEAM_NAME) : null,
+                                // ageBetween 과 같은 조건 (ageLoe, ageGoe 모두 goe)
+                                params.has(AGE_LOE) ? member.age.goe(AGE_LOE) : null,
+                                params.has(AGE_GOE) ? member.age.goe(AGE_GOE) : null
+                        )));
+
+        return resultSizeGuard.fetch("MemberJpaRepository.search", condition,
+                limit -> template.fetch(em, params, 0L, limit));
+    }
+
+    /**
+     * search 와 같은 조건의 결과를 List 로 모으지 않고 한 건씩 consumer 에 넘긴다. (전체 export 용)
+     * forward-only scroll 로 읽기 때문에 결과 건수와 상관없이 메모리 사용량이 일정하다.
+     *
+     * @return 넘긴 row 수
+     */
+    @Transactional(readOnly = true)
+    public long stream(MemberSearchCondition condition, Consumer<MemberTeamDto> consumer) {
+        long count = 0;
+        try (CloseableIterator<MemberTeamDto> rows = joinTeam(queryFactory
                 .select(new QMemberTeamDto(
-                    member.id.as("memberId"),
-                    member.username.as("username"),
-                    member.age.as("age"),
-                    team.id.as("teamId"),
-                    team.name.as("teamName")
+                        member.id.as("memberId"),
+                        member.username.as("username"),
+                        member.age.as("age"),
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
                 ))
-                .from(member)
-                .leftJoin(member.team, team)
+                .from(member), condition)
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageBetween(condition.getAgeLoe(), condition.getAgeGoe())
                 )
-                .fetch();
+                .setHint(QueryHints.FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(QueryHints.READ_ONLY, true)
+                // Hibernate 에서는 ScrollableResults(FORWARD_ONLY) 로 실행된다.
+                .iterate()) {
+
+            while (rows.hasNext()) {
+                consumer.accept(rows.next());
+                if (++count % STREAM_CLEAR_INTERVAL == 0) {
+                    em.clear();
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * teamName 조건이 있으면 inner join : left join 이면 idx_team_name 으로 team 부터 찾지 못한다. (MemberRepositoryCustomImpl 과 동일)
+     */
+    private <T> JPAQuery<T> joinTeam(JPAQuery<T> query, MemberSearchCondition condition) {
+        return StringUtils.hasText(condition.getTeamName())
+                ? query.join(member.team, team)
+                : query.leftJoin(member.team, team);
     }
 
     private BooleanExpression ageBetween(int ageLoe, int ageGoe) {
@@ -141,10 +227,9 @@ public class MemberJpaRepository {
     }
 
     public List<Member> searchMember(MemberSearchCondition condition) {
-        return queryFactory
+        return joinTeam(queryFactory
                 .selectFrom(member)
-                .from(member)
-                .leftJoin(member.team, team)
+                .from(member), condition)
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
@@ -0,0 +1,47 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import study.querydsl.dto.MemberCursor;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.support.Querydsl4RepositorySupport.keysetAfter;
+
+/**
+ * MemberCursor -> seek 조건 / 정렬 조건 변환
+ * 어떤 Repository 구현체에서 keyset 페이징을 하더라도 커서 해석이 같아야 하므로 한 곳에 모아둔다.
+ */
+public final class MemberKeysetQuery {
+
+    private MemberKeysetQuery() {
+    }
+
+    public static BooleanExpression seek(MemberCursor cursor) {
+        if (cursor.isFirst()) {
+            return null;
+        }
+
+        switch (cursor.getProperty()) {
+            case "age":
+                return keysetAfter(member.age, Integer.valueOf(cursor.getLastValue()),
+                        member.id, cursor.getLastId(), cursor.isAscending());
+            default:
+                return keysetAfter(member.id, cursor.getLastId(),
+                        member.id, cursor.getLastId(), cursor.isAscending());
+        }
+    }
+
+    // seek 조건과 같은 (sortKey, id) 순서로 정렬해야 커서가 의미를 가진다.
+    public static OrderSpecifier<?>[] orderBy(MemberCursor cursor) {
+        Order direction = cursor.isAscending() ? Order.ASC : Order.DESC;
+        OrderSpecifier<Long> idOrder = new OrderSpecifier<>(direction, member.id);
+
+        switch (cursor.getProperty()) {
+            case "age":
+                return new OrderSpecifier<?>[]{new OrderSpecifier<>(direction, member.age), idOrder};
+            default:
+                return new OrderSpecifier<?>[]{idOrder};
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package study.querydsl.repository;
 
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
@@ -8,6 +9,7 @@ import org.springframework.util.StringUtils;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.support.ResultSizeGuard;
 
 import java.util.List;
 
@@ -21,9 +23,10 @@ public class MemberQueryRepository {
     // Query 가 너무 하나의 기능에 특화되어있다면 이런 방식으로 Repository 를 완전 분리하는 것도 괜찮다.
 
     private final JPAQueryFactory queryFactory;
+    private final ResultSizeGuard resultSizeGuard;
 
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
+        return resultSizeGuard.fetch("MemberQueryRepository.search", condition, joinTeam(queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username.as("username"),
@@ -31,14 +34,19 @@ public class MemberQueryRepository {
                         team.id.as("teamId"),
                         team.name.as("teamName")
                 ))
-                .from(member)
-                .leftJoin(member.team, team)
+                .from(member), condition)
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageBetween(condition.getAgeLoe(), condition.getAgeGoe())
-                )
-                .fetch();
+                ));
+    }
+
+    // teamName 조건이 있으면 inner join 으로 idx_team_name 사용 (MemberRepositoryCustomImpl 과 동일)
+    private <T> JPAQuery<T> joinTeam(JPAQuery<T> query, MemberSearchCondition condition) {
+        return StringUtils.hasText(condition.getTeamName())
+                ? query.join(member.team, team)
+                : query.leftJoin(member.team, team);
     }
 
     private BooleanExpression ageBetween(int ageLoe, int ageGoe) {
@@ -1,15 +1,23 @@
 package study.querydsl.repository;
 
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Param;
 import com.querydsl.jpa.JPQLQuery;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSearchConditionKey;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.support.PagingStrategy;
 import study.querydsl.support.Querydsl4RepositorySupport;
+import study.querydsl.support.TemplateParameters;
 
 import java.util.List;
 
@@ -21,8 +29,15 @@ import static study.querydsl.entity.QTeam.team;
 @Repository
 public class MemberTestRepository extends Querydsl4RepositorySupport {
 
+    // searchByTemplate 바인딩 파라미터
+    private static final Param<String> USERNAME = new Param<>(String.class, "username");
+    private static final Param<String> TEAM_NAME = new Param<>(String.class, "teamName");
+    private static final Param<Integer> AGE_GOE = new Param<>(Integer.class, "ageGoe");
+    private static final Param<Integer> AGE_LOE = new Param<>(Integer.class, "ageLoe");
+
     public MemberTestRepository() {
-        super(Member.class);
+        // Pageable 정렬 조건이 QMember.member 의 alias 기준으로 적용되도록 Q-type 으로 생성
+        super(member);
     }
 
     public List<Member> basicSelect() {
@@ -69,6 +84,33 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
 
     public Page<Member> applyPaginationComplex(MemberSearchCondition condition, Pageable pageable) {
         return applyPagination(pageable,
+                contentQuery -> contentQuery
+                        .selectFrom(member)
+                        .leftJoin(member.team, team)
+                        .where(
+                                usernameEq(condition.getUsername()),
+                                teamNameEq(condition.getTeamName()),
+                                ageGoe(condition.getAgeGoe()),
+                                ageLoe(condition.getAgeLoe())
+                        ),
+                // teamName 조건이 없으면 team join 없이 select count(member.id)
+                () -> countQuery(member, member.id)
+                        .leftJoin(member.team, team)
+                        .where(
+                                usernameEq(condition.getUsername()),
+                                teamNameEq(condition.getTeamName()),
+                                ageGoe(condition.getAgeGoe()),
+                                ageLoe(condition.getAgeLoe())
+                        )
+                        .fetchCount(),
+                "applyPaginationComplex",
+                MemberSearchConditionKey.of(condition)
+        );
+    }
+
+    // content query 와 count query 를 동시에 실행 : 읽기 전용 조회에서만 사용
+    public Page<Member> applyPaginationConcurrently(MemberSearchCondition condition, Pageable pageable) {
+        return applyPaginationConcurrently(pageable,
                 contentQuery -> contentQuery
                         .selectFrom(member)
                         .leftJoin(member.team, team)
@@ -79,7 +121,7 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
                                 ageLoe(condition.getAgeLoe())
                         ),
                 countQuery -> countQuery
-                        .select(member.id)
+                        .select(member.id.count())
                         .from(member)
                         .leftJoin(member.team, team)
                         .where(
@@ -91,6 +133,106 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
         );
     }
 
+    /**
+     * 같은 검색을 페이징 전략만 바꿔서 실행 : offset 이 클 때 SINGLE_QUERY / DEFERRED_JOIN 비교용
+     */
+    public Page<MemberTeamDto> searchPageMemberTeam(MemberSearchCondition condition,
+                                                    Pageable pageable,
+                                                    PagingStrategy strategy) {
+        return applyPagination(pageable, strategy,
+                new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username.as("username"),
+                        member.age.as("age"),
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                ),
+                member.id,
+                countQuery(member, member.id)
+                        .leftJoin(member.team, team)
+                        .where(
+                                usernameEq(condition.getUsername()),
+                                teamNameEq(condition.getTeamName()),
+                                ageGoe(condition.getAgeGoe()),
+                                ageLoe(condition.getAgeLoe())
+                        )
+        );
+    }
+
+    public Slice<Member> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        return applySlice(pageable, query -> query
+                .selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+        );
+    }
+
+    public Slice<Member> searchKeyset(MemberSearchCondition condition, MemberCursor cursor, int size) {
+        return applyKeysetPagination(size,
+                MemberKeysetQuery.seek(cursor),
+                MemberKeysetQuery.orderBy(cursor),
+                query -> query
+                        .selectFrom(member)
+                        .leftJoin(member.team, team)
+                        .where(
+                                usernameEq(condition.getUsername()),
+                                teamNameEq(condition.getTeamName()),
+                                ageGoe(condition.getAgeGoe()),
+                                ageLoe(condition.getAgeLoe())
+                        )
+        );
+    }
+
+    /**
+     * MemberJpaRepository.searchByBuilder 와 같은 검색을 조건 모양별로 컴파일된 템플릿으로 실행
+     * 값은 Param 으로 바인딩만 하므로 호출마다 where 절을 만들고 JPQL 로 직렬화하지 않는다.
+     */
+    public List<MemberTeamDto> searchByTemplate(MemberSearchCondition condition) {
+        TemplateParameters params = new TemplateParameters()
+                .set(USERNAME, StringUtils.hasText(condition.getUsername()) ? condition.getUsername() : null)
+                .set(TEAM_NAME, StringUtils.hasText(condition.getTeamName()) ? condition.getTeamName() : null)
+                .set(AGE_GOE, condition.getAgeGoe())
+                .set(AGE_LOE, condition.getAgeLoe());
+
+        return fetchTemplate("searchByTemplate", params, query -> query
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username.as("username"),
+                        member.age.as("age"),
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                ))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        params.has(USERNAME) ? member.username.eq(USERNAME) : null,
+                        params.has(TEAM_NAME) ? team.name.eq(TEAM_NAME) : null,
+                        params.has(AGE_GOE) ? member.age.goe(AGE_GOE) : null,
+                        params.has(AGE_LOE) ? member.age.loe(AGE_LOE) : null
+                )
+        );
+    }
+
+    /**
+     * ageGoe 이상인 회원의 나이를 amount 만큼 증가 : em.clear() 없이 관리 중인 회원도 변경된 값으로 갱신된다.
+     */
+    public long bulkAddAge(int ageGoe, int amount) {
+        return bulkUpdate(member, member.id, member.age.goe(ageGoe),
+                clause -> clause.set(member.age, member.age.add(amount)));
+    }
+
+    /**
+     * ageGoe 이상인 회원 삭제 : 삭제된 회원만 영속성 컨텍스트에서 분리된다.
+     */
+    public long bulkDeleteByAgeGoe(int ageGoe) {
+        return bulkDelete(member, member.id, member.age.goe(ageGoe));
+    }
+
     private BooleanExpression ageBetween(int ageLoe, int ageGoe) {
         return ageGoe(ageLoe).and(ageGoe(ageGoe));
     }
@@ -0,0 +1,72 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.QTeamMemberDto;
+import study.querydsl.dto.TeamMemberDto;
+import study.querydsl.dto.TeamMembersDto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@Repository
+@RequiredArgsConstructor
+public class TeamQueryRepository {
+
+    private final JPAQueryFactory queryFactory;
+
+    /**
+     * 팀 페이지 + 소속 회원 목록
+     * Team.getMembers() 를 팀마다 초기화하면 팀 수만큼 쿼리가 나가므로(N+1)
+     * 1. 팀 한 페이지 조회 2. 그 팀들의 회원을 in 절 한 번으로 조회 3. 메모리에서 팀별로 묶는다.
+     * 페이지 크기와 상관없이 쿼리는 팀 1 + 회원 1 (+ count 1) 번
+     * 컬렉션 fetch join 은 페이징을 메모리에서 하게 되므로 사용하지 않는다.
+     */
+    @Transactional(readOnly = true)
+    public Page<TeamMembersDto> findTeamsWithMembers(Pageable pageable) {
+        List<Tuple> teams = queryFactory
+                .select(team.id, team.name)
+                .from(team)
+                .orderBy(team.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        Map<Long, TeamMembersDto> byTeamId = new LinkedHashMap<>();
+        for (Tuple row : teams) {
+            byTeamId.put(row.get(team.id), new TeamMembersDto(row.get(team.id), row.get(team.name)));
+        }
+
+        if (!byTeamId.isEmpty()) {
+            // member.team.id 는 FK 컬럼이라 team join 없이 조회된다.
+            List<Tuple> members = queryFactory
+                    .select(member.team.id, new QTeamMemberDto(member.id, member.username, member.age))
+                    .from(member)
+                    .where(member.team.id.in(byTeamId.keySet()))
+                    .orderBy(member.id.asc())
+                    .fetch();
+
+            for (Tuple row : members) {
+                byTeamId.get(row.get(member.team.id)).getMembers().add(row.get(1, TeamMemberDto.class));
+            }
+        }
+
+        JPAQuery<Long> countQuery = queryFactory
+                .select(team.count())
+                .from(team);
+
+        return PageableExecutionUtils.getPage(new ArrayList<>(byTeamId.values()), pageable, countQuery::fetchOne);
+    }
+}
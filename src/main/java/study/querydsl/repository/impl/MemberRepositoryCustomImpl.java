@@ -1,38 +1,57 @@
 package study.querydsl.repository.impl;
 
-import com.querydsl.core.QueryResults;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSearchConditionKey;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
-import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberKeysetQuery;
 import study.querydsl.repository.MemberRepositoryCustom;
+import study.querydsl.support.CountQueryBuilder;
+import study.querydsl.support.CountQueryCache;
+import study.querydsl.support.RepositoryMetrics;
+import study.querydsl.support.ResultSizeGuard;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.List;
 
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
 // 반드시 클래스 명 마지막이 Impl이어야 한다.
+// 전부 조회 : 라우팅이 켜져 있으면 replica 에서 조회 (ReadWriteRoutingDataSource)
+@Transactional(readOnly = true)
 public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
 
     private final JPAQueryFactory queryFactory;
+    private final CountQueryCache countQueryCache;
+    private final RepositoryMetrics repositoryMetrics;
+    private final ResultSizeGuard resultSizeGuard;
 
-    public MemberRepositoryCustomImpl(EntityManager em) {
+    public MemberRepositoryCustomImpl(EntityManager em, CountQueryCache countQueryCache, RepositoryMetrics repositoryMetrics,
+                                      ResultSizeGuard resultSizeGuard) {
         this.queryFactory = new JPAQueryFactory(em);
+        this.countQueryCache = countQueryCache;
+        this.repositoryMetrics = repositoryMetrics;
+        this.resultSizeGuard = resultSizeGuard;
     }
 
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
+        // 페이징 없는 조회 : 조건이 없거나 결과가 max-rows 를 넘으면 SearchLimitExceededException
+        return resultSizeGuard.fetch("MemberRepository.search", condition, joinTeam(queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username.as("username"),
@@ -40,19 +59,17 @@ public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
                         team.id.as("teamId"),
                         team.name.as("teamName")
                 ))
-                .from(member)
-                .leftJoin(member.team, team)
+                .from(member), condition)
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageBetween(condition.getAgeLoe(), condition.getAgeGoe())
-                )
-                .fetch();
+                ));
     }
 
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-        QueryResults<MemberTeamDto> results = queryFactory
+        List<MemberTeamDto> content = joinTeam(queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username.as("username"),
@@ -60,8 +77,7 @@ public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
                         team.id.as("teamId"),
                         team.name.as("teamName")
                 ))
-                .from(member)
-                .leftJoin(member.team, team)
+                .from(member), condition)
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
@@ -69,18 +85,18 @@ public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
                 )
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
-                // contents를 가져오는 쿼리와 count 쿼리까지 총 두 번 날림
-                .fetchResults();
+                .fetch();
 
-        List<MemberTeamDto> content = results.getResults();
-        long total = results.getTotal();
+        // contents를 가져오는 쿼리와 count 쿼리까지 총 두 번 날림
+        // fetchResults() 는 projection 전체를 감싸서 세므로 join 을 정리한 count(member.id) 를 직접 만든다.
+        long total = countQuery(condition).fetchCount();
 
         return new PageImpl<>(content, pageable, total);
     }
 
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> results = queryFactory
+        List<MemberTeamDto> results = joinTeam(queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username.as("username"),
@@ -88,8 +104,7 @@ public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
                         team.id.as("teamId"),
                         team.name.as("teamName")
                 ))
-                .from(member)
-                .leftJoin(member.team, team)
+                .from(member), condition)
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
@@ -99,24 +114,101 @@ public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
                 .limit(pageable.getPageSize())
                 .fetch();
 
-        JPAQuery<Member> countQuery = queryFactory
-                .select(member)
-                .from(member)
-                .leftJoin(member.team, team)
+        CountQueryBuilder countQuery = countQuery(condition);
+
+//        return new PageImpl<>(results, pageable, total);
+        // limit보다 전체 카운트가 작거나, 마지막 페이지에서는 카운트 쿼리를 호출하지 않음 : count query 최적화
+        // countQuery::fetchCount = () -> countQuery.fetchCount();
+        // 같은 조건으로 페이지만 넘기는 경우 캐시된 count 사용
+        // (PageableExecutionUtils.getPage 와 같고, count query 실행/생략 여부를 메트릭으로 남긴다.)
+        return repositoryMetrics.getPage("MemberRepository", results, pageable,
+                () -> countQueryCache.count("searchPageComplex", MemberSearchConditionKey.of(condition), countQuery::fetchCount));
+    }
+
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        // count query 없이 한 건 더 조회해서 다음 페이지 여부만 판단 : 무한 스크롤처럼 전체 개수가 필요 없는 경우
+        List<MemberTeamDto> results = joinTeam(queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username.as("username"),
+                        member.age.as("age"),
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                ))
+                .from(member), condition)
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageBetween(condition.getAgeLoe(), condition.getAgeGoe())
-                );
+                )
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize() + 1)
+                .fetch();
 
-//        return new PageImpl<>(results, pageable, total);
-        // limit보다 전체 카운트가 작거나, 마지막 페이지에서는 카운트 쿼리를 호출하지 않음 : count query 최적화
-        // countQuery::fetchCount = () -> countQuery.fetchCount();
-        return PageableExecutionUtils.getPage(results, pageable, countQuery::fetchCount);
+        return toSlice(results, pageable);
     }
 
+    @Override
+    public Slice<MemberTeamDto> searchKeyset(MemberSearchCondition condition, MemberCursor cursor, int size) {
+        // offset 대신 마지막 row의 (정렬 키, id) 이후부터 조회 : 몇 번째 페이지든 인덱스 seek 한 번으로 시작 위치를 찾는다.
+        List<MemberTeamDto> results = joinTeam(queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username.as("username"),
+                        member.age.as("age"),
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                ))
+                .from(member), condition)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageBetween(condition.getAgeLoe(), condition.getAgeGoe()),
+                        MemberKeysetQuery.seek(cursor)
+                )
+                .orderBy(MemberKeysetQuery.orderBy(cursor))
+                // 다음 페이지 존재 여부 확인용으로 한 건 더 조회
+                .limit(size + 1)
+                .fetch();
+
+        return toSlice(results, PageRequest.ofSize(size));
+    }
 
+    /**
+     * teamName 조건이 있으면 team 이 없는 회원은 어차피 걸러지므로 inner join 으로 바꾼다.
+     * left join 이면 member 부터 읽어야 해서 idx_team_name 을 쓰지 못한다. (outer join 을 재작성하지 않는 H2 등)
+     */
+    private <T> JPAQuery<T> joinTeam(JPAQuery<T> query, MemberSearchCondition condition) {
+        return StringUtils.hasText(condition.getTeamName())
+                ? query.join(member.team, team)
+                : query.leftJoin(member.team, team);
+    }
 
+    /**
+     * select count(member.id) : teamName 조건이 없으면 team join 은 count 에서 빠지고, 있으면 content 와 같이 inner join
+     */
+    private CountQueryBuilder countQuery(MemberSearchCondition condition) {
+        CountQueryBuilder countQuery = new CountQueryBuilder(queryFactory, member, member.id);
+        if (StringUtils.hasText(condition.getTeamName())) {
+            countQuery.join(member.team, team);
+        } else {
+            countQuery.leftJoin(member.team, team);
+        }
+        return countQuery.where(
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageBetween(condition.getAgeLoe(), condition.getAgeGoe())
+        );
+    }
+
+    private <T> Slice<T> toSlice(List<T> results, Pageable pageable) {
+        boolean hasNext = results.size() > pageable.getPageSize();
+        if (hasNext) {
+            results = new ArrayList<>(results.subList(0, pageable.getPageSize()));
+        }
+        return new SliceImpl<>(results, pageable, hasNext);
+    }
 
     private BooleanExpression ageBetween(int ageLoe, int ageGoe) {
         return ageGoe(ageLoe).and(ageGoe(ageGoe));
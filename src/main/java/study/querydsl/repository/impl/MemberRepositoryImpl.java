@@ -5,16 +5,24 @@ import com.querydsl.jpa.JPQLQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
 import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberKeysetQuery;
 import study.querydsl.repository.MemberRepositoryCustom;
+import study.querydsl.support.CountQueryBuilder;
+import study.querydsl.support.ResultSizeGuard;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.List;
 
 import static study.querydsl.entity.QMember.member;
@@ -23,6 +31,7 @@ import static study.querydsl.entity.QTeam.team;
 public class MemberRepositoryImpl extends QuerydslRepositorySupport implements MemberRepositoryCustom {
 
     private final JPAQueryFactory queryFactory;
+    private final ResultSizeGuard resultSizeGuard;
     /**
      * QuerydslRepositorySupport 의 장점
      * 스프링 데이터가 제공하는 페이징을 편리하게 관리 가능함
@@ -33,16 +42,16 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
      * Querydsl 3.x 버전을 대상으로 만들어짐
      */
 
-    public MemberRepositoryImpl(EntityManager em) {
+    public MemberRepositoryImpl(EntityManager em, ResultSizeGuard resultSizeGuard) {
         super(Member.class);
         this.queryFactory = new JPAQueryFactory(em);
+        this.resultSizeGuard = resultSizeGuard;
     }
 
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        EntityManager entityManager = getEntityManager();
-
-        List<MemberTeamDto> memberTeamDtos = from(member)
+        // 페이징 없는 조회 : 조건이 없거나 결과가 max-rows 를 넘으면 SearchLimitExceededException
+        return resultSizeGuard.fetch("MemberRepositoryImpl.search", condition, from(member)
                 .leftJoin(member.team, team)
                 .where(
                         usernameEq(condition.getUsername()),
@@ -56,9 +65,7 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
                                 member.age.as("age"),
                                 team.id.as("teamId"),
                                 team.name.as("teamName"))
-                ).fetch();
-
-        return memberTeamDtos;
+                ));
     }
 
     @Override
@@ -81,7 +88,15 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
         JPQLQuery<MemberTeamDto> query = getQuerydsl().applyPagination(pageable, jpqlQuery);
 
         List<MemberTeamDto> fetch = query.fetch();
-        long total = query.fetchCount();
+        // fetchCount() 는 projection 전체를 감싸서 세므로 count(member.id) 를 직접 만든다.
+        long total = new CountQueryBuilder(queryFactory, member, member.id)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageBetween(condition.getAgeLoe(), condition.getAgeGoe())
+                )
+                .fetchCount();
 
         return new PageImpl<>(fetch, pageable, total);
     }
@@ -91,6 +106,62 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
         return null;
     }
 
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        JPQLQuery<MemberTeamDto> jpqlQuery = from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageBetween(condition.getAgeLoe(), condition.getAgeGoe())
+                )
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username.as("username"),
+                        member.age.as("age"),
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                ));
+
+        List<MemberTeamDto> content = getQuerydsl().applyPagination(pageable, jpqlQuery)
+                .limit(pageable.getPageSize() + 1)
+                .fetch();
+
+        return toSlice(content, pageable);
+    }
+
+    @Override
+    public Slice<MemberTeamDto> searchKeyset(MemberSearchCondition condition, MemberCursor cursor, int size) {
+        List<MemberTeamDto> content = from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageBetween(condition.getAgeLoe(), condition.getAgeGoe()),
+                        MemberKeysetQuery.seek(cursor)
+                )
+                .orderBy(MemberKeysetQuery.orderBy(cursor))
+                .limit(size + 1)
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username.as("username"),
+                        member.age.as("age"),
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                ))
+                .fetch();
+
+        return toSlice(content, PageRequest.ofSize(size));
+    }
+
+    private <T> Slice<T> toSlice(List<T> content, Pageable pageable) {
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content = new ArrayList<>(content.subList(0, pageable.getPageSize()));
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
     private BooleanExpression ageBetween(int ageLoe, int ageGoe) {
         return ageGoe(ageLoe).and(ageGoe(ageGoe));
     }
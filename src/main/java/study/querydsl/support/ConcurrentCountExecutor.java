@@ -0,0 +1,214 @@
+package study.querydsl.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * count query 를 content query 와 동시에 실행하기 위한 전용 executor
+ * count 는 요청 스레드의 트랜잭션이 아니라 count 스레드의 별도 트랜잭션(커넥션)에서 실행된다.
+ * 따라서 현재 트랜잭션에서 아직 커밋하지 않은 변경은 count 에 보이지 않는다. : 읽기 전용 조회에만 사용할 것
+ *
+ * 커넥션 : 요청 스레드가 커넥션을 잡은 채로 count 가 같은 풀에서 하나 더 빌리므로 동시에 실행되는 count 를
+ * 스레드 수(pool-size)로 제한하고, pool-size 는 커넥션 풀(hikari maximum-pool-size)의 1/4 이하만 허용한다.
+ * 대기 큐는 없다. count 스레드가 모두 사용 중이면 커넥션을 더 빌리지 않고 요청 스레드에서 순서대로 센다. (fallback)
+ *
+ * 라우팅 : count 트랜잭션은 요청 스레드 트랜잭션의 readOnly 여부와 ReplicaStickiness 를 그대로 따른다.
+ * readOnly 검색이면 count 도 readOnly 트랜잭션이라서 content 와 같은 쪽(replica / 쓰기 직후면 primary)에서 센다.
+ *
+ * - querydsl.concurrent-count.active : 실행 중인 count 수 (= 추가로 빌린 커넥션 수)
+ * - querydsl.concurrent-count.submitted : 동시 실행을 요청한 횟수
+ * - querydsl.concurrent-count.used : 실제로 total 을 요구한 횟수
+ * - querydsl.concurrent-count.skipped : 첫 페이지가 덜 찼거나 마지막 페이지라서 결과를 버린 횟수
+ * - querydsl.concurrent-count.rejected : count 스레드가 모두 사용 중이라서 요청 스레드에서 센 횟수
+ * - querydsl.concurrent-count.timed-out : timeout 안에 끝나지 않은 횟수
+ */
+@Component
+public class ConcurrentCountExecutor implements DisposableBean {
+
+    public static final String ACTIVE = "querydsl.concurrent-count.active";
+    public static final String SUBMITTED = "querydsl.concurrent-count.submitted";
+    public static final String USED = "querydsl.concurrent-count.used";
+    public static final String SKIPPED = "querydsl.concurrent-count.skipped";
+    public static final String REJECTED = "querydsl.concurrent-count.rejected";
+    public static final String TIMED_OUT = "querydsl.concurrent-count.timed-out";
+
+    // 커넥션 풀 중 count 가 추가로 빌릴 수 있는 비율 (1/4)
+    private static final int CONNECTION_POOL_FRACTION = 4;
+
+    private final EntityManager em;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate readWriteTransaction;
+    @Nullable
+    private final ReplicaStickiness stickiness;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+
+    private final Counter submitted;
+    private final Counter used;
+    private final Counter skipped;
+    private final Counter rejected;
+    private final Counter timedOut;
+
+    /**
+     * @param stickiness 라우팅(querydsl.datasource.routing.enabled)을 사용하지 않으면 null
+     * @param poolSize 동시에 실행할 count 수 : connectionPoolSize / 4 이하
+     * @param connectionPoolSize 요청 스레드와 같이 쓰는 커넥션 풀 크기
+     */
+    public ConcurrentCountExecutor(EntityManager em,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry registry,
+                                   @Nullable ReplicaStickiness stickiness,
+                                   @Value("${querydsl.concurrent-count.pool-size:2}") int poolSize,
+                                   @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize,
+                                   @Value("${querydsl.concurrent-count.timeout:5s}") Duration timeout) {
+        Assert.isTrue(poolSize > 0 && poolSize <= connectionPoolSize / CONNECTION_POOL_FRACTION,
+                "Concurrent count pool size must be between 1 and 1/" + CONNECTION_POOL_FRACTION
+                        + " of the connection pool (" + connectionPoolSize + ")");
+        this.em = em;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readWriteTransaction = new TransactionTemplate(transactionManager);
+        this.readWriteTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.stickiness = stickiness;
+        this.timeoutMillis = timeout.toMillis();
+
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(), new CountThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder(ACTIVE, executor, ThreadPoolExecutor::getActiveCount).register(registry);
+        this.submitted = Counter.builder(SUBMITTED).register(registry);
+        this.used = Counter.builder(USED).register(registry);
+        this.skipped = Counter.builder(SKIPPED).register(registry);
+        this.rejected = Counter.builder(REJECTED).register(registry);
+        this.timedOut = Counter.builder(TIMED_OUT).register(registry);
+    }
+
+    /**
+     * count query 를 바로 실행 시작한다.
+     * count 스레드가 모두 사용 중이면 get() 호출 시 fallback 으로 요청 스레드에서 센다.
+     *
+     * @param countQuery select count(...) 쿼리 : count 스레드의 트랜잭션에 묶인 JPAQueryFactory 가 넘어온다.
+     * @param fallback executor 가 거절했을 때 실행할 count
+     */
+    public PendingCount submit(Function<JPAQueryFactory, JPAQuery<Long>> countQuery, LongSupplier fallback) {
+        submitted.increment();
+        // content query 와 같은 쪽에서 세도록 라우팅 기준은 요청 스레드에서 읽어둔다.
+        TransactionTemplate transaction = TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                ? readOnlyTransaction
+                : readWriteTransaction;
+        long primaryUntil = stickiness == null ? 0L : stickiness.capture();
+        try {
+            return new PendingCount(executor.submit(() -> {
+                Supplier<Long> count = () -> transaction.execute(status -> count(countQuery));
+                return stickiness == null ? count.get() : stickiness.callWith(primaryUntil, count);
+            }), fallback);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return new PendingCount(null, fallback);
+        }
+    }
+
+    private long count(Function<JPAQueryFactory, JPAQuery<Long>> countQuery) {
+        Long count = countQuery.apply(new JPAQueryFactory(em))
+                // hibernate 는 Integer(ms) 만 받는다.
+                .setHint("javax.persistence.query.timeout", Math.toIntExact(timeoutMillis))
+                .fetchOne();
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * 실행 중인 count : get() 을 호출하지 않고 close() 되면 필요 없었던 count 로 보고 취소한다.
+     */
+    public class PendingCount implements AutoCloseable {
+
+        private final Future<Long> future;
+        private final LongSupplier fallback;
+        private boolean requested;
+
+        private PendingCount(Future<Long> future, LongSupplier fallback) {
+            this.future = future;
+            this.fallback = fallback;
+        }
+
+        public long get() {
+            requested = true;
+            used.increment();
+            if (future == null) {
+                return fallback.getAsLong();
+            }
+
+            try {
+                return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                timedOut.increment();
+                future.cancel(true);
+                throw new QueryTimeoutException("Count query did not finish within " + timeoutMillis + "ms", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                throw new IllegalStateException("Interrupted while waiting for count query", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!requested) {
+                skipped.increment();
+                if (future != null) {
+                    future.cancel(true);
+                }
+            }
+        }
+    }
+
+    private static class CountThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "count-query-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package study.querydsl.support;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.core.types.dsl.SimpleExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 동적 검색용 count query 생성기
+ * select count(id) 를 직접 만들고, 활성화된 where 조건이 참조하지 않는 to-one left join 은 제외한다.
+ * to-one 관계의 left join 은 row 수를 바꾸지 않으므로 조건에 쓰이지 않으면 count 결과에 영향이 없다.
+ * 같은 join 정리로 count 외의 select 도 만들 수 있다. (select : deferred join 의 id 조회 등)
+ *
+ * <pre>
+ * new CountQueryBuilder(queryFactory, member, member.id)
+ *         .leftJoin(member.team, team)
+ *         .where(usernameEq(...), teamNameEq(...))
+ *         .fetchCount();
+ * </pre>
+ */
+public class CountQueryBuilder {
+
+    private final JPAQueryFactory queryFactory;
+    private final EntityPath<?> from;
+    private final SimpleExpression<?> countTarget;
+
+    private final List<Join<?>> joins = new ArrayList<>();
+    private final List<Predicate> predicates = new ArrayList<>();
+
+    public CountQueryBuilder(JPAQueryFactory queryFactory, EntityPath<?> from, SimpleExpression<?> countTarget) {
+        this.queryFactory = queryFactory;
+        this.from = from;
+        this.countTarget = countTarget;
+    }
+
+    /**
+     * to-one(ManyToOne, OneToOne) 관계의 left join 만 등록할 것
+     * to-many 나 inner join 은 row 수를 바꾸므로 제외하면 count 가 달라진다.
+     */
+    public <P> CountQueryBuilder leftJoin(EntityPath<P> target, EntityPath<P> alias) {
+        joins.add(new Join<>(target, alias, false));
+        return this;
+    }
+
+    /**
+     * inner join 은 row 수를 바꾸므로 조건에서 참조하지 않아도 항상 포함한다.
+     */
+    public <P> CountQueryBuilder join(EntityPath<P> target, EntityPath<P> alias) {
+        joins.add(new Join<>(target, alias, true));
+        return this;
+    }
+
+    /**
+     * null 조건은 무시한다. (where 절 파라미터와 동일)
+     */
+    public CountQueryBuilder where(Predicate... predicates) {
+        Arrays.stream(predicates)
+                .filter(Objects::nonNull)
+                .forEach(this.predicates::add);
+        return this;
+    }
+
+    public JPAQuery<Long> build() {
+        return select(countTarget.count());
+    }
+
+    /**
+     * count 와 같은 from/join/where 로 projection 을 조회한다.
+     * where 조건이나 projection 이 참조하지 않는 to-one left join 은 제외된다.
+     * ex) select(member.id) : team 조건이 없으면 member 만 조회
+     */
+    public <T> JPAQuery<T> select(Expression<T> projection) {
+        Set<Path<?>> referenced = new HashSet<>();
+        projection.accept(RootPathCollector.INSTANCE, referenced);
+        predicates.forEach(predicate -> predicate.accept(RootPathCollector.INSTANCE, referenced));
+
+        // 뒤의 join 이 앞 join 의 alias 를 통해 연결될 수 있으므로 뒤에서부터 필요 여부를 판단한다.
+        boolean[] required = new boolean[joins.size()];
+        for (int i = joins.size() - 1; i >= 0; i--) {
+            Join<?> join = joins.get(i);
+            if (join.inner || referenced.contains(join.alias)) {
+                required[i] = true;
+                referenced.add(join.target.getRoot());
+            }
+        }
+
+        JPAQuery<T> query = queryFactory
+                .select(projection)
+                .from(from);
+        for (int i = 0; i < joins.size(); i++) {
+            if (required[i]) {
+                joins.get(i).applyTo(query);
+            }
+        }
+        return query.where(predicates.toArray(new Predicate[0]));
+    }
+
+    public long fetchCount() {
+        Long count = build().fetchOne();
+        return count == null ? 0 : count;
+    }
+
+    private static class Join<P> {
+        private final EntityPath<P> target;
+        private final EntityPath<P> alias;
+        private final boolean inner;
+
+        private Join(EntityPath<P> target, EntityPath<P> alias, boolean inner) {
+            this.target = target;
+            this.alias = alias;
+            this.inner = inner;
+        }
+
+        private void applyTo(JPAQuery<?> query) {
+            if (inner) {
+                query.join(target, alias);
+            } else {
+                query.leftJoin(target, alias);
+            }
+        }
+    }
+
+    /**
+     * 조건식이 참조하는 root path(alias)를 모은다.
+     */
+    private static class RootPathCollector implements Visitor<Void, Set<Path<?>>> {
+
+        private static final RootPathCollector INSTANCE = new RootPathCollector();
+
+        @Override
+        public Void visit(Constant<?> expr, Set<Path<?>> context) {
+            return null;
+        }
+
+        @Override
+        public Void visit(FactoryExpression<?> expr, Set<Path<?>> context) {
+            expr.getArgs().forEach(arg -> arg.accept(this, context));
+            return null;
+        }
+
+        @Override
+        public Void visit(Operation<?> expr, Set<Path<?>> context) {
+            expr.getArgs().forEach(arg -> arg.accept(this, context));
+            return null;
+        }
+
+        @Override
+        public Void visit(ParamExpression<?> expr, Set<Path<?>> context) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Path<?> expr, Set<Path<?>> context) {
+            context.add(expr.getRoot());
+            return null;
+        }
+
+        @Override
+        public Void visit(SubQueryExpression<?> expr, Set<Path<?>> context) {
+            // 상관 서브쿼리가 바깥 alias 를 참조할 수 있으므로 서브쿼리 조건도 확인한다.
+            QueryMetadata metadata = expr.getMetadata();
+            if (metadata.getProjection() != null) {
+                metadata.getProjection().accept(this, context);
+            }
+            if (metadata.getWhere() != null) {
+                metadata.getWhere().accept(this, context);
+            }
+            if (metadata.getHaving() != null) {
+                metadata.getHaving().accept(this, context);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(TemplateExpression<?> expr, Set<Path<?>> context) {
+            for (Object arg : expr.getArgs()) {
+                if (arg instanceof Expression) {
+                    ((Expression<?>) arg).accept(this, context);
+                }
+            }
+            return null;
+        }
+    }
+}
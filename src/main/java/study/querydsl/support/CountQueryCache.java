@@ -0,0 +1,105 @@
+package study.querydsl.support;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Page 조회의 count query 결과 캐시
+ * 같은 검색 조건으로 다음 페이지를 누를 때마다 전체 count 를 다시 세지 않도록 한다.
+ * 크기(LRU)와 TTL 로 제한하고, 엔티티 변경 이벤트가 오면 전부 비운다.
+ */
+@Component
+public class CountQueryCache {
+
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final Map<Object, CachedCount> cache;
+    // 무효화 세대 : count 를 세는 도중에 무효화가 일어났으면 그 결과는 캐시에 넣지 않는다.
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CountQueryCache(@Value("${querydsl.count-cache.max-size:1000}") int maxSize,
+                           @Value("${querydsl.count-cache.ttl:30s}") Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, CachedCount> eldest) {
+                return size() > CountQueryCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * @param name count query 를 구분하는 이름 (같은 조건이라도 쿼리가 다르면 다른 키)
+     * @param key 정규화된 검색 조건 ex) MemberSearchConditionKey
+     * @param countQuery 캐시에 없을 때 실행할 count query
+     */
+    public long count(String name, Object key, LongSupplier countQuery) {
+        Object cacheKey = Arrays.asList(name, key);
+        long now = System.nanoTime();
+
+        synchronized (cache) {
+            CachedCount cached = cache.get(cacheKey);
+            if (cached != null && cached.expiresAt - now > 0) {
+                hits.increment();
+                return cached.count;
+            }
+        }
+
+        misses.increment();
+        long startGeneration = generation.get();
+        long count = countQuery.getAsLong();
+
+        synchronized (cache) {
+            if (generation.get() == startGeneration) {
+                cache.put(cacheKey, new CachedCount(count, now + ttlNanos));
+            }
+        }
+        return count;
+    }
+
+    @EventListener
+    public void invalidate(EntityChangeEvent event) {
+        synchronized (cache) {
+            generation.incrementAndGet();
+            cache.clear();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private static class CachedCount {
+        private final long count;
+        private final long expiresAt;
+
+        private CachedCount(long count, long expiresAt) {
+            this.count = count;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package study.querydsl.support;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * 엔티티 insert/update/delete 또는 bulk 연산이 일어났음을 알리는 이벤트
+ * 조회 결과를 들고 있는 캐시들이 이 이벤트를 받아서 무효화한다.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class EntityChangeEvent {
+
+    private final Class<?> entityType;
+}
@@ -0,0 +1,25 @@
+package study.querydsl.support;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * JPA 엔티티 리스너 : @EntityListeners 로 등록
+ * Hibernate 가 SpringBeanContainer 를 통해 생성하므로 스프링 빈을 주입받을 수 있다.
+ */
+@RequiredArgsConstructor
+public class EntityChangeListener {
+
+    private final EntityChangePublisher entityChangePublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        entityChangePublisher.changed(Hibernate.getClass(entity));
+    }
+}
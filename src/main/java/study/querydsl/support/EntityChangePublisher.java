@@ -0,0 +1,66 @@
+package study.querydsl.support;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+@Component
+@RequiredArgsConstructor
+public class EntityChangePublisher {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    // suppress() 실행 중인 스레드
+    private final ThreadLocal<Boolean> suppressed = new ThreadLocal<>();
+
+    public void changed(Class<?> entityType) {
+        if (suppressed.get() != null) {
+            return;
+        }
+        eventPublisher.publishEvent(new EntityChangeEvent(entityType));
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        // 트랜잭션이 끝난 뒤(커밋/롤백) 한 번 더 알린다.
+        // 트랜잭션 도중에 커밋 전 데이터나 롤백될 데이터로 캐시가 다시 채워졌을 수 있기 때문
+        @SuppressWarnings("unchecked")
+        Set<Class<?>> changed = (Set<Class<?>>) TransactionSynchronizationManager.getResource(this);
+        if (changed == null) {
+            Set<Class<?>> pending = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(EntityChangePublisher.this);
+                    pending.forEach(type -> eventPublisher.publishEvent(new EntityChangeEvent(type)));
+                }
+            });
+            changed = pending;
+        }
+        changed.add(entityType);
+    }
+
+    /**
+     * work 실행 중에는 이 스레드의 알림(엔티티 리스너의 row 단위 알림 포함)을 보내지 않는다. : 대량 적재용
+     * 끝난 뒤 호출한 쪽에서 changed() 를 직접 한 번 호출해야 한다. ex) MemberBulkLoader 는 chunk 커밋마다
+     */
+    public <T> T suppress(Supplier<T> work) {
+        if (suppressed.get() != null) {
+            return work.get();
+        }
+        suppressed.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            suppressed.remove();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package study.querydsl.support;
+
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * List&lt;MemberTeamDto&gt; 의 컬럼 단위 바이너리 포맷 (application/x-member-columnar)
+ * 서비스 간 호출에서 JSON 직렬화 비용(필드 이름 반복, 숫자 -> 문자열 변환)을 줄이기 위한 용도
+ *
+ * 전부 big-endian (DataOutputStream)
+ * <pre>
+ * int    magic (MAGIC)
+ * int    row 수 n
+ * long[n] memberId
+ * int[n]  age
+ * int    팀 사전 크기 d
+ * d x    { long teamId, string teamName }   teamId, teamName 은 항상 같이 다니므로 한 쌍으로 사전에 넣는다.
+ * int[n]  팀 사전 index (팀이 없으면 -1)
+ * n x    string username
+ * </pre>
+ * string : int 길이(null 이면 -1) + UTF-8 bytes
+ * memberId 는 PK 라서 null 이 올 수 없다.
+ */
+public final class MemberColumnarCodec {
+
+    public static final int MAGIC = 0x4D544331; // "MTC1"
+
+    private static final int NULL_LENGTH = -1;
+    private static final int NO_TEAM = -1;
+
+    private MemberColumnarCodec() {
+    }
+
+    /**
+     * out 은 닫지 않는다. (flush 만)
+     */
+    public static void write(List<MemberTeamDto> rows, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        int size = rows.size();
+
+        data.writeInt(MAGIC);
+        data.writeInt(size);
+
+        for (MemberTeamDto row : rows) {
+            data.writeLong(row.getMemberId());
+        }
+        for (MemberTeamDto row : rows) {
+            data.writeInt(row.getAge());
+        }
+
+        // 팀 사전 : 처음 나온 순서대로 index 부여
+        Map<TeamEntry, Integer> dictionary = new HashMap<>();
+        List<TeamEntry> entries = new ArrayList<>();
+        int[] teamIndexes = new int[size];
+        for (int i = 0; i < size; i++) {
+            MemberTeamDto row = rows.get(i);
+            if (row.getTeamId() == null) {
+                teamIndexes[i] = NO_TEAM;
+                continue;
+            }
+            TeamEntry entry = new TeamEntry(row.getTeamId(), row.getTeamName());
+            Integer index = dictionary.get(entry);
+            if (index == null) {
+                index = entries.size();
+                dictionary.put(entry, index);
+                entries.add(entry);
+            }
+            teamIndexes[i] = index;
+        }
+
+        data.writeInt(entries.size());
+        for (TeamEntry entry : entries) {
+            data.writeLong(entry.teamId);
+            writeString(data, entry.teamName);
+        }
+        for (int teamIndex : teamIndexes) {
+            data.writeInt(teamIndex);
+        }
+
+        for (MemberTeamDto row : rows) {
+            writeString(data, row.getUsername());
+        }
+        data.flush();
+    }
+
+    public static List<MemberTeamDto> read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+
+        int magic = data.readInt();
+        if (magic != MAGIC) {
+            throw new IOException("not a member columnar body : magic " + Integer.toHexString(magic));
+        }
+        int size = data.readInt();
+
+        long[] memberIds = new long[size];
+        for (int i = 0; i < size; i++) {
+            memberIds[i] = data.readLong();
+        }
+        int[] ages = new int[size];
+        for (int i = 0; i < size; i++) {
+            ages[i] = data.readInt();
+        }
+
+        int dictionarySize = data.readInt();
+        long[] teamIds = new long[dictionarySize];
+        String[] teamNames = new String[dictionarySize];
+        for (int i = 0; i < dictionarySize; i++) {
+            teamIds[i] = data.readLong();
+            teamNames[i] = readString(data);
+        }
+        int[] teamIndexes = new int[size];
+        for (int i = 0; i < size; i++) {
+            teamIndexes[i] = data.readInt();
+        }
+
+        List<MemberTeamDto> rows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String username = readString(data);
+            int teamIndex = teamIndexes[i];
+            rows.add(teamIndex == NO_TEAM
+                    ? new MemberTeamDto(memberIds[i], username, ages[i], null, null)
+                    : new MemberTeamDto(memberIds[i], username, ages[i], teamIds[teamIndex], teamNames[teamIndex]));
+        }
+        return rows;
+    }
+
+    private static void writeString(DataOutputStream data, String value) throws IOException {
+        if (value == null) {
+            data.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+
+    private static String readString(DataInputStream data) throws IOException {
+        int length = data.readInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        data.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static class TeamEntry {
+        private final long teamId;
+        private final String teamName;
+
+        private TeamEntry(long teamId, String teamName) {
+            this.teamId = teamId;
+            this.teamName = teamName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof TeamEntry)) {
+                return false;
+            }
+            TeamEntry that = (TeamEntry) o;
+            return teamId == that.teamId && Objects.equals(teamName, that.teamName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(teamId, teamName);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package study.querydsl.support;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * MemberColumnarHttpMessageConverter 등록
+ * HttpMessageConverter 빈으로 등록하면 Jackson 보다 앞에 들어가서 Accept: *&#47;* 요청도 바이너리로 응답하게 되므로
+ * 기본 converter 들의 맨 뒤에 추가한다. : Accept 로 명시한 경우에만 선택된다.
+ */
+@Configuration
+public class MemberColumnarConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new MemberColumnarHttpMessageConverter());
+    }
+}
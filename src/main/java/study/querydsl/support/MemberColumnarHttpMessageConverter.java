@@ -0,0 +1,81 @@
+package study.querydsl.support;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * List&lt;MemberTeamDto&gt; 응답을 MemberColumnarCodec 포맷으로 읽고 쓴다.
+ * Accept: application/x-member-columnar 로 요청했을 때만 선택된다. (MemberColumnarConfig 에서 Jackson 뒤에 등록)
+ * 클라이언트는 같은 converter 를 RestTemplate 에 등록하거나 MemberColumnarCodec.read 로 읽으면 된다.
+ */
+public class MemberColumnarHttpMessageConverter extends AbstractGenericHttpMessageConverter<List<MemberTeamDto>> {
+
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType("application/x-member-columnar");
+
+    public MemberColumnarHttpMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return isMemberTeamList(type) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return isMemberTeamList(type == null ? clazz : type) && canWrite(mediaType);
+    }
+
+    // 제네릭 타입 정보 없이 List 만으로는 판단하지 않는다.
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    // 응답 가능한 media type 계산(content negotiation)은 클래스로만 물어보므로 List 이면 지원한다고 답한다.
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        return supports(clazz) ? getSupportedMediaTypes() : Collections.emptyList();
+    }
+
+    @Override
+    protected void writeInternal(List<MemberTeamDto> rows, Type type, HttpOutputMessage outputMessage) throws IOException {
+        MemberColumnarCodec.write(rows, outputMessage.getBody());
+    }
+
+    @Override
+    public List<MemberTeamDto> read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return MemberColumnarCodec.read(inputMessage.getBody());
+    }
+
+    @Override
+    protected List<MemberTeamDto> readInternal(Class<? extends List<MemberTeamDto>> clazz, HttpInputMessage inputMessage) throws IOException {
+        return MemberColumnarCodec.read(inputMessage.getBody());
+    }
+
+    private boolean isMemberTeamList(Type type) {
+        ResolvableType resolvableType = ResolvableType.forType(type);
+        return List.class.isAssignableFrom(resolvableType.toClass())
+                && resolvableType.hasGenerics()
+                && resolvableType.getGeneric(0).toClass() == MemberTeamDto.class;
+    }
+}
@@ -0,0 +1,93 @@
+package study.querydsl.support;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import study.querydsl.dto.MemberPageResponse;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.IOException;
+
+/**
+ * MemberPageResponse 전용 serializer
+ * BeanSerializer 처럼 getter 를 reflection 으로 찾지 않고, 필드 이름은 미리 인코딩해 둔 SerializedString 을 쓴다.
+ * JsonGenerator 는 응답 OutputStream 위에 만들어지므로 (MappingJackson2HttpMessageConverter) 중간 버퍼 없이 바로 쓰인다.
+ * MemberTeamDto 에 필드가 추가되면 여기도 같이 추가할 것
+ */
+public class MemberPageResponseSerializer extends StdSerializer<MemberPageResponse> {
+
+    private static final SerializedString CONTENT = new SerializedString("content");
+    private static final SerializedString MEMBER_ID = new SerializedString("memberId");
+    private static final SerializedString USERNAME = new SerializedString("username");
+    private static final SerializedString AGE = new SerializedString("age");
+    private static final SerializedString TEAM_ID = new SerializedString("teamId");
+    private static final SerializedString TEAM_NAME = new SerializedString("teamName");
+    private static final SerializedString NUMBER = new SerializedString("number");
+    private static final SerializedString SIZE = new SerializedString("size");
+    private static final SerializedString NUMBER_OF_ELEMENTS = new SerializedString("numberOfElements");
+    private static final SerializedString TOTAL_ELEMENTS = new SerializedString("totalElements");
+    private static final SerializedString TOTAL_PAGES = new SerializedString("totalPages");
+    private static final SerializedString FIRST = new SerializedString("first");
+    private static final SerializedString LAST = new SerializedString("last");
+    private static final SerializedString EMPTY = new SerializedString("empty");
+
+    public MemberPageResponseSerializer() {
+        super(MemberPageResponse.class);
+    }
+
+    @Override
+    public void serialize(MemberPageResponse page, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject();
+
+        gen.writeFieldName(CONTENT);
+        gen.writeStartArray();
+        for (MemberTeamDto row : page.getContent()) {
+            writeRow(row, gen);
+        }
+        gen.writeEndArray();
+
+        gen.writeFieldName(NUMBER);
+        gen.writeNumber(page.getNumber());
+        gen.writeFieldName(SIZE);
+        gen.writeNumber(page.getSize());
+        gen.writeFieldName(NUMBER_OF_ELEMENTS);
+        gen.writeNumber(page.getNumberOfElements());
+        gen.writeFieldName(TOTAL_ELEMENTS);
+        gen.writeNumber(page.getTotalElements());
+        gen.writeFieldName(TOTAL_PAGES);
+        gen.writeNumber(page.getTotalPages());
+        gen.writeFieldName(FIRST);
+        gen.writeBoolean(page.isFirst());
+        gen.writeFieldName(LAST);
+        gen.writeBoolean(page.isLast());
+        gen.writeFieldName(EMPTY);
+        gen.writeBoolean(page.isEmpty());
+
+        gen.writeEndObject();
+    }
+
+    private void writeRow(MemberTeamDto row, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName(MEMBER_ID);
+        writeNumber(row.getMemberId(), gen);
+        gen.writeFieldName(USERNAME);
+        gen.writeString(row.getUsername());
+        gen.writeFieldName(AGE);
+        gen.writeNumber(row.getAge());
+        gen.writeFieldName(TEAM_ID);
+        writeNumber(row.getTeamId(), gen);
+        gen.writeFieldName(TEAM_NAME);
+        gen.writeString(row.getTeamName());
+        gen.writeEndObject();
+    }
+
+    // 팀이 없는 회원(left join)은 teamId 가 null
+    private void writeNumber(Long value, JsonGenerator gen) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+}
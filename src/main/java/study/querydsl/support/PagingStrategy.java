@@ -0,0 +1,18 @@
+package study.querydsl.support;
+
+/**
+ * 페이징 쿼리 실행 방식
+ */
+public enum PagingStrategy {
+
+    /**
+     * 조회 컬럼 전체를 offset/limit 으로 한 번에 조회
+     */
+    SINGLE_QUERY,
+
+    /**
+     * id 만 offset/limit 으로 먼저 조회하고, 해당 id 들의 row 만 join 해서 채운다. (deferred join)
+     * offset 이 클 때 건너뛰는 row 들을 join/projection 하지 않아도 된다.
+     */
+    DEFERRED_JOIN
+}
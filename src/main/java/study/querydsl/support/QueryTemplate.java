@@ -0,0 +1,96 @@
+package study.querydsl.support;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUtil;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JPQL 로 미리 직렬화해 둔 Querydsl 쿼리
+ * 값은 {@link com.querydsl.core.types.dsl.Param} 으로 남겨 두고 실행할 때 바인딩만 하므로
+ * 호출마다 BooleanExpression 트리를 만들고 JPQLSerializer 로 직렬화하는 비용이 없다.
+ * JPQL 문자열이 항상 같아서 Hibernate 의 query plan cache 도 매번 hit 한다.
+ * (AbstractJPAQuery.createQuery 와 같은 방식으로 파라미터 바인딩 / projection 변환을 한다.)
+ */
+public final class QueryTemplate<T> {
+
+    private final String jpql;
+    // 직렬화 순서대로의 바인딩 대상 : Param 이거나 쿼리에 직접 쓴 상수
+    private final List<Object> constants;
+    private final JPQLTemplates templates;
+    private final Expression<?> projection;
+
+    private QueryTemplate(String jpql, List<Object> constants, JPQLTemplates templates, Expression<?> projection) {
+        this.jpql = jpql;
+        this.constants = constants;
+        this.templates = templates;
+        this.projection = projection;
+    }
+
+    public static <T> QueryTemplate<T> compile(EntityManager em, JPAQuery<T> query) {
+        QueryMetadata metadata = query.getMetadata();
+        if (metadata.getModifiers().isRestricting()) {
+            throw new IllegalArgumentException("limit/offset must be applied on execution, not in the template");
+        }
+
+        JPQLTemplates templates = JPAProvider.getTemplates(em);
+        JPQLSerializer serializer = new JPQLSerializer(templates, em);
+        serializer.serialize(metadata, false, null);
+
+        return new QueryTemplate<>(serializer.toString(),
+                Collections.unmodifiableList(new ArrayList<>(serializer.getConstants())),
+                templates,
+                metadata.getProjection());
+    }
+
+    public List<T> fetch(EntityManager em, TemplateParameters params, Long offset, Integer limit) {
+        return fetch(em, params.getValues(), offset, limit);
+    }
+
+    public List<T> fetch(EntityManager em, Map<ParamExpression<?>, Object> params) {
+        return fetch(em, params, null, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<T> fetch(EntityManager em, Map<ParamExpression<?>, Object> params, Long offset, Integer limit) {
+        Query query = em.createQuery(jpql);
+        JPAUtil.setConstants(query, constants, params);
+        if (offset != null) {
+            query.setFirstResult(Math.toIntExact(offset));
+        }
+        if (limit != null) {
+            query.setMaxResults(limit);
+        }
+
+        if (!(projection instanceof FactoryExpression)
+                || templates.getQueryHandler().transform(query, (FactoryExpression<?>) projection)) {
+            return query.getResultList();
+        }
+
+        // ResultTransformer 를 쓸 수 없는 provider : 직접 projection 으로 변환
+        FactoryExpression<T> factory = (FactoryExpression<T>) projection;
+        List<?> rows = query.getResultList();
+        List<T> results = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            Object[] args = row != null && row.getClass().isArray() ? (Object[]) row : new Object[]{row};
+            results.add(factory.newInstance(args));
+        }
+        return results;
+    }
+
+    public String getJpql() {
+        return jpql;
+    }
+}
@@ -0,0 +1,58 @@
+package study.querydsl.support;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 이름 + 조건 모양(shape)별 {@link QueryTemplate} 캐시
+ * 모양의 개수는 코드(선택 조건의 조합)로 정해지므로 만료 없이 보관한다.
+ * max-size 를 넘으면 더 이상 넣지 않고 매번 컴파일한다. (조합이 폭발하는 잘못된 사용 방지)
+ */
+@Component
+public class QueryTemplateCache {
+
+    private final int maxSize;
+    private final Map<Object, QueryTemplate<?>> cache = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public QueryTemplateCache(@Value("${querydsl.query-template-cache.max-size:500}") int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> QueryTemplate<T> get(String name, Object shape, Supplier<QueryTemplate<T>> compiler) {
+        Object key = Arrays.asList(name, shape);
+        QueryTemplate<T> template = (QueryTemplate<T>) cache.get(key);
+        if (template != null) {
+            hits.increment();
+            return template;
+        }
+
+        misses.increment();
+        template = compiler.get();
+        if (cache.size() < maxSize) {
+            cache.putIfAbsent(key, template);
+        }
+        return template;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+}
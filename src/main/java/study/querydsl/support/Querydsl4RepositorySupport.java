@@ -22,7 +22,10 @@ import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.jpa.repository.support.Querydsl;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.lang.Nullable;
@@ -31,15 +34,33 @@ import org.springframework.util.Assert;
 
 import com.querydsl.core.dml.DeleteClause;
 import com.querydsl.core.dml.UpdateClause;
+import com.querydsl.core.Tuple;
 import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.SimpleExpression;
 import com.querydsl.core.types.dsl.PathBuilder;
 import com.querydsl.core.types.dsl.PathBuilderFactory;
 import com.querydsl.jpa.JPQLQuery;
 import com.querydsl.jpa.impl.JPADeleteClause;
 import com.querydsl.jpa.impl.JPAUpdateClause;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
 
 /**
  * Base class for implementing repositories using Querydsl library.
@@ -50,10 +71,19 @@ import java.util.function.Function;
 @Repository
 public abstract class Querydsl4RepositorySupport {
 
+	// bulk 연산 대상 중 관리 중인 엔티티를 찾을 때 in 절 하나에 넣는 id 수
+	private static final int BULK_IN_SIZE = 1000;
+
 	private final PathBuilder<?> builder;
 
 	private @Nullable EntityManager entityManager;
 	private @Nullable Querydsl querydsl;
+	private @Nullable JPAQueryFactory queryFactory;
+	private @Nullable EntityChangePublisher entityChangePublisher;
+	private @Nullable CountQueryCache countQueryCache;
+	private @Nullable ConcurrentCountExecutor concurrentCountExecutor;
+	private @Nullable QueryTemplateCache queryTemplateCache;
+	private @Nullable RepositoryMetrics repositoryMetrics;
 
 	/**
 	 * Creates a new {@link Querydsl4RepositorySupport} instance for the given domain type.
@@ -66,6 +96,19 @@ public abstract class Querydsl4RepositorySupport {
 		this.builder = new PathBuilderFactory().create(domainClass);
 	}
 
+	/**
+	 * Creates a new {@link Querydsl4RepositorySupport} instance for the given Querydsl entity path.
+	 * {@link Pageable} sort properties are resolved against the alias of the given path, so sorting works
+	 * with queries written using the same Q-type (e.g. {@code QMember.member}).
+	 *
+	 * @param entityPath must not be {@literal null}.
+	 */
+	public Querydsl4RepositorySupport(EntityPath<?> entityPath) {
+
+		Assert.notNull(entityPath, "Entity path must not be null!");
+		this.builder = new PathBuilder<>(entityPath.getType(), entityPath.getMetadata());
+	}
+
 	/**
 	 * Setter to inject {@link EntityManager}.
 	 *
@@ -76,9 +119,50 @@ public abstract class Querydsl4RepositorySupport {
 
 		Assert.notNull(entityManager, "EntityManager must not be null!");
 		this.querydsl = new Querydsl(entityManager, builder);
+		this.queryFactory = new JPAQueryFactory(entityManager);
 		this.entityManager = entityManager;
 	}
 
+	/**
+	 * Setter to inject {@link EntityChangePublisher}. Bulk clauses notify it after execution.
+	 */
+	@Autowired
+	public void setEntityChangePublisher(EntityChangePublisher entityChangePublisher) {
+		this.entityChangePublisher = entityChangePublisher;
+	}
+
+	/**
+	 * Setter to inject {@link CountQueryCache}.
+	 */
+	@Autowired
+	public void setCountQueryCache(CountQueryCache countQueryCache) {
+		this.countQueryCache = countQueryCache;
+	}
+
+	/**
+	 * Setter to inject {@link ConcurrentCountExecutor}.
+	 */
+	@Autowired
+	public void setConcurrentCountExecutor(ConcurrentCountExecutor concurrentCountExecutor) {
+		this.concurrentCountExecutor = concurrentCountExecutor;
+	}
+
+	/**
+	 * Setter to inject {@link QueryTemplateCache}.
+	 */
+	@Autowired
+	public void setQueryTemplateCache(QueryTemplateCache queryTemplateCache) {
+		this.queryTemplateCache = queryTemplateCache;
+	}
+
+	/**
+	 * Setter to inject {@link RepositoryMetrics}. Records whether page count queries were executed or skipped.
+	 */
+	@Autowired
+	public void setRepositoryMetrics(RepositoryMetrics repositoryMetrics) {
+		this.repositoryMetrics = repositoryMetrics;
+	}
+
 	/**
 	 * Callback to verify configuration. Used by containers.
 	 */
@@ -98,10 +182,17 @@ public abstract class Querydsl4RepositorySupport {
 		return entityManager;
 	}
 
+	/**
+	 * Returns the {@link JPAQueryFactory}. The factory is stateless and bound to the shared
+	 * {@link EntityManager} proxy, so a single instance is reused for every query.
+	 *
+	 * @return the queryFactory
+	 */
 	@Nullable
 	protected JPAQueryFactory getQueryFactory() {
-		return new JPAQueryFactory(this::getEntityManager);
+		return queryFactory;
 	}
+
 	/**
 	 * Returns a fresh {@link JPQLQuery}.
 	 *
@@ -129,7 +220,14 @@ public abstract class Querydsl4RepositorySupport {
 	 * @return the Querydsl {@link DeleteClause}.
 	 */
 	protected DeleteClause<JPADeleteClause> delete(EntityPath<?> path) {
-		return new JPADeleteClause(getRequiredEntityManager(), path);
+		return new JPADeleteClause(getRequiredEntityManager(), path) {
+			@Override
+			public long execute() {
+				long affected = super.execute();
+				notifyChanged(path);
+				return affected;
+			}
+		};
 	}
 
 	/**
@@ -139,7 +237,95 @@ public abstract class Querydsl4RepositorySupport {
 	 * @return the Querydsl {@link UpdateClause}.
 	 */
 	protected UpdateClause<JPAUpdateClause> update(EntityPath<?> path) {
-		return new JPAUpdateClause(getRequiredEntityManager(), path);
+		return new JPAUpdateClause(getRequiredEntityManager(), path) {
+			@Override
+			public long execute() {
+				long affected = super.execute();
+				notifyChanged(path);
+				return affected;
+			}
+		};
+	}
+
+	/**
+	 * 영속성 컨텍스트를 비우지 않는 bulk update
+	 * 실행 전에 flush 해서 변경 내용을 먼저 반영하고, 실행 후에는 조건에 해당하는 관리 중인 엔티티만 refresh 한다.
+	 * 나머지 엔티티는 그대로 관리 상태로 남으므로 긴 트랜잭션 중간에도 em.clear() 없이 사용할 수 있다.
+	 * 2차 캐시 region 은 Hibernate 가 bulk 연산 시 비운다.
+	 * 주의 : mappedBy 쪽 컬렉션(ex. Team.members)은 JPA 의 em.remove / 연관관계 변경과 마찬가지로 갱신되지 않는다.
+	 *
+	 * @param id 대상 엔티티의 id (영향을 받은 관리 중인 엔티티를 찾는 데 사용)
+	 * @param where bulk update 조건
+	 * @param set 변경할 값 ex) clause -> clause.set(member.age, member.age.add(1))
+	 * @return 영향을 받은 row 수
+	 */
+	protected <ID> long bulkUpdate(EntityPath<?> path,
+								   SimpleExpression<ID> id,
+								   Predicate where,
+								   Consumer<UpdateClause<JPAUpdateClause>> set) {
+		getRequiredEntityManager().flush();
+		List<Object> affected = findManaged(path, id, where);
+
+		UpdateClause<JPAUpdateClause> clause = update(path);
+		set.accept(clause);
+		long count = clause.where(where).execute();
+
+		for (Object entity : affected) {
+			getRequiredEntityManager().refresh(entity);
+		}
+		return count;
+	}
+
+	/**
+	 * 영속성 컨텍스트를 비우지 않는 bulk delete
+	 * 실행 전에 flush 하고, 실행 후에는 삭제된 관리 중인 엔티티만 영속성 컨텍스트에서 분리(detach)한다.
+	 *
+	 * @see #bulkUpdate(EntityPath, SimpleExpression, Predicate, Consumer)
+	 */
+	protected <ID> long bulkDelete(EntityPath<?> path,
+								   SimpleExpression<ID> id,
+								   Predicate where) {
+		getRequiredEntityManager().flush();
+		List<Object> affected = findManaged(path, id, where);
+
+		long count = delete(path).where(where).execute();
+
+		for (Object entity : affected) {
+			getRequiredEntityManager().detach(entity);
+		}
+		return count;
+	}
+
+	// 관리 중인 엔티티 중 bulk 조건에 해당하는 것 : 관리 중인 id 로 범위를 좁혀서 id 만 조회한다.
+	@SuppressWarnings("unchecked")
+	private <ID> List<Object> findManaged(EntityPath<?> path, SimpleExpression<ID> id, Predicate where) {
+		Map<ID, Object> managed = new HashMap<>();
+		SessionImplementor session = getRequiredEntityManager().unwrap(SessionImplementor.class);
+		for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+			if (entry.getValue().getStatus() == Status.MANAGED && path.getType().isInstance(entry.getKey())) {
+				managed.put((ID) entry.getValue().getId(), entry.getKey());
+			}
+		}
+		if (managed.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		List<ID> managedIds = new ArrayList<>(managed.keySet());
+		List<Object> affected = new ArrayList<>();
+		for (int from = 0; from < managedIds.size(); from += BULK_IN_SIZE) {
+			List<ID> chunk = managedIds.subList(from, Math.min(from + BULK_IN_SIZE, managedIds.size()));
+			for (ID affectedId : getQueryFactory().select(id).from(path).where(where, id.in(chunk)).fetch()) {
+				affected.add(managed.get(affectedId));
+			}
+		}
+		return affected;
+	}
+
+	// bulk 연산은 엔티티 리스너를 거치지 않으므로 직접 변경을 알린다.
+	private void notifyChanged(EntityPath<?> path) {
+		if (entityChangePublisher != null) {
+			entityChangePublisher.changed(path.getType());
+		}
 	}
 
 	/**
@@ -185,7 +371,7 @@ public abstract class Querydsl4RepositorySupport {
 										  Function<JPAQueryFactory, JPAQuery> contentQuery) {
 		JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
 		List<T> content = getQuerydsl().applyPagination(pageable, jpaQuery).fetch();
-		return PageableExecutionUtils.getPage(content, pageable, jpaQuery::fetchCount);
+		return getPage(content, pageable, jpaQuery::fetchCount);
 	}
 
 	protected <T> Page<T> applyPagination(Pageable pageable,
@@ -195,6 +381,239 @@ public abstract class Querydsl4RepositorySupport {
 		List<T> content = getQuerydsl().applyPagination(pageable, jpaContentQuery).fetch();
 		JPAQuery jpaCountQuery = countQuery.apply(getQueryFactory());
 
-		return PageableExecutionUtils.getPage(content, pageable, jpaCountQuery::fetchCount);
+		return getPage(content, pageable, jpaCountQuery::fetchCount);
+	}
+
+	// PageableExecutionUtils.getPage + count query 실행/생략 메트릭
+	private <T> Page<T> getPage(List<T> content, Pageable pageable, LongSupplier totalCount) {
+		if (repositoryMetrics == null) {
+			return PageableExecutionUtils.getPage(content, pageable, totalCount);
+		}
+		return repositoryMetrics.getPage(getClass().getSimpleName(), content, pageable, totalCount);
+	}
+
+	/**
+	 * 전체 개수를 직접 세는 페이징 : {@link #countQuery} 로 만든 count query 를 넘긴다.
+	 *
+	 * @param totalCount 필요할 때만 호출된다. (PageableExecutionUtils)
+	 */
+	protected <T> Page<T> applyPagination(Pageable pageable,
+										  Function<JPAQueryFactory, JPAQuery> contentQuery,
+										  LongSupplier totalCount) {
+		JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
+		List<T> content = getQuerydsl().applyPagination(pageable, jpaContentQuery).fetch();
+		return getPage(content, pageable, totalCount);
+	}
+
+	/**
+	 * count query 결과를 {@link CountQueryCache} 에 캐시하는 페이징
+	 * 같은 조건으로 페이지만 넘기는 경우 count query 를 다시 실행하지 않는다.
+	 *
+	 * @param countCacheName count query 를 구분하는 이름
+	 * @param countCacheKey 정규화된 검색 조건
+	 */
+	protected <T> Page<T> applyPagination(Pageable pageable,
+										  Function<JPAQueryFactory, JPAQuery> contentQuery,
+										  LongSupplier totalCount,
+										  String countCacheName,
+										  Object countCacheKey) {
+		if (countQueryCache == null) {
+			return applyPagination(pageable, contentQuery, totalCount);
+		}
+		return applyPagination(pageable, contentQuery,
+				() -> countQueryCache.count(countCacheName, countCacheKey, totalCount));
+	}
+
+	/**
+	 * select count(id) 를 직접 만드는 count query 생성기
+	 * where 조건이 참조하지 않는 to-one left join 은 count 에서 제외된다.
+	 */
+	protected CountQueryBuilder countQuery(EntityPath<?> from, SimpleExpression<?> id) {
+		return new CountQueryBuilder(getQueryFactory(), from, id);
+	}
+
+	/**
+	 * count query 를 content query 와 동시에 실행하는 페이징 (opt-in)
+	 * count 는 {@link ConcurrentCountExecutor} 에서 별도의 트랜잭션(커넥션)으로 실행되므로
+	 * 현재 트랜잭션의 커밋 전 변경은 반영되지 않는다. 읽기 전용 조회에서만 사용한다.
+	 * count 스레드가 모두 사용 중이면 커넥션을 더 빌리지 않고 현재 스레드에서 센다.
+	 * 첫 페이지가 덜 찼거나 마지막 페이지라서 count 가 필요 없으면 실행 중인 count 는 취소된다.
+	 *
+	 * @param countQuery select count(...) 쿼리 ex) select(member.id.count())
+	 */
+	protected <T> Page<T> applyPaginationConcurrently(Pageable pageable,
+													  Function<JPAQueryFactory, JPAQuery> contentQuery,
+													  Function<JPAQueryFactory, JPAQuery<Long>> countQuery) {
+		LongSupplier totalCount = () -> {
+			Long count = countQuery.apply(getQueryFactory()).fetchOne();
+			return count == null ? 0 : count;
+		};
+		if (concurrentCountExecutor == null) {
+			return applyPagination(pageable, contentQuery, totalCount);
+		}
+
+		try (ConcurrentCountExecutor.PendingCount total = concurrentCountExecutor.submit(countQuery, totalCount)) {
+			JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
+			List<T> content = getQuerydsl().applyPagination(pageable, jpaContentQuery).fetch();
+			return getPage(content, pageable, total::get);
+		}
+	}
+
+	/**
+	 * 페이징 방식을 호출마다 선택할 수 있는 페이징
+	 * baseQuery 에는 from/join/where 만 작성하고 ({@link #countQuery}), select 는 전략에 맞게 여기서 붙인다.
+	 * 조회 대상이나 조건이 참조하지 않는 to-one left join 은 단계마다 제외된다.
+	 * count 는 count(id), deferred join 의 1단계 id 조회는 조건에 필요한 join 만으로 실행된다.
+	 *
+	 * @param projection 조회 결과
+	 * @param id row 를 식별하는 id (deferred join 의 1단계 조회 대상) : baseQuery 의 count 대상과 같아야 한다.
+	 * @param baseQuery ex) countQuery(member, member.id).leftJoin(member.team, team).where(...)
+	 */
+	protected <T, ID> Page<T> applyPagination(Pageable pageable,
+											  PagingStrategy strategy,
+											  Expression<T> projection,
+											  SimpleExpression<ID> id,
+											  CountQueryBuilder baseQuery) {
+		List<T> content = strategy == PagingStrategy.DEFERRED_JOIN
+				? fetchDeferred(pageable, projection, id, baseQuery)
+				: getQuerydsl().applyPagination(pageable, baseQuery.select(projection)).fetch();
+
+		return getPage(content, pageable, baseQuery::fetchCount);
+	}
+
+	// 1단계 : id 만 페이징 (인덱스만으로 처리 가능), 2단계 : 해당 id 의 row 만 조회 후 1단계 순서대로 정렬
+	private <T, ID> List<T> fetchDeferred(Pageable pageable,
+										  Expression<T> projection,
+										  SimpleExpression<ID> id,
+										  CountQueryBuilder baseQuery) {
+		List<ID> ids = getQuerydsl().applyPagination(pageable, baseQuery.select(id)).fetch();
+		if (ids.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		List<Tuple> rows = baseQuery
+				.select(Projections.tuple(id, projection))
+				.where(id.in(ids))
+				.fetch();
+
+		Map<ID, T> byId = new HashMap<>(rows.size() * 2);
+		for (Tuple row : rows) {
+			byId.put(row.get(id), row.get(projection));
+		}
+
+		List<T> content = new ArrayList<>(ids.size());
+		for (ID rowId : ids) {
+			T row = byId.get(rowId);
+			if (row != null) {
+				content.add(row);
+			}
+		}
+		return content;
+	}
+
+	/**
+	 * 조건의 모양(shape)별로 한 번만 JPQL 로 직렬화해 두고 이후 호출은 파라미터 바인딩만 하는 조회
+	 * query 에는 값 대신 {@link com.querydsl.core.types.dsl.Param} 을 쓰고, 어떤 조건을 넣을지는
+	 * {@link TemplateParameters#has} 로만 판단해야 한다. (query 는 캐시에 없을 때만 호출된다.)
+	 *
+	 * @param name 쿼리를 구분하는 이름
+	 * @param params 바인딩할 값
+	 */
+	protected <T> List<T> fetchTemplate(String name,
+										TemplateParameters params,
+										Function<JPAQueryFactory, JPAQuery<T>> query) {
+		return getTemplate(name, params, query).fetch(getRequiredEntityManager(), params.getValues());
+	}
+
+	/**
+	 * {@link #fetchTemplate(String, TemplateParameters, Function)} 의 offset / limit 적용 버전
+	 * 정렬은 템플릿(JPQL)에 포함되어야 하므로 Pageable 의 Sort 는 지원하지 않는다.
+	 */
+	protected <T> List<T> fetchTemplate(String name,
+										TemplateParameters params,
+										Pageable pageable,
+										Function<JPAQueryFactory, JPAQuery<T>> query) {
+		Assert.isTrue(pageable.getSort().isUnsorted(), "Sort must be part of the query template");
+		QueryTemplate<T> template = getTemplate(name, params, query);
+		if (pageable.isUnpaged()) {
+			return template.fetch(getRequiredEntityManager(), params.getValues());
+		}
+		return template.fetch(getRequiredEntityManager(), params.getValues(), pageable.getOffset(), pageable.getPageSize());
+	}
+
+	private <T> QueryTemplate<T> getTemplate(String name,
+											 TemplateParameters params,
+											 Function<JPAQueryFactory, JPAQuery<T>> query) {
+		if (queryTemplateCache == null) {
+			return QueryTemplate.compile(getRequiredEntityManager(), query.apply(getQueryFactory()));
+		}
+		return queryTemplateCache.get(name, params.shape(),
+				() -> QueryTemplate.compile(getRequiredEntityManager(), query.apply(getQueryFactory())));
+	}
+
+	/**
+	 * count query 없이 pageSize + 1 건을 조회해서 다음 페이지 존재 여부만 판단한다. (무한 스크롤 용)
+	 */
+	protected <T> Slice<T> applySlice(Pageable pageable,
+									  Function<JPAQueryFactory, JPAQuery> contentQuery) {
+		JPAQuery<T> jpaQuery = contentQuery.apply(getQueryFactory());
+		if (pageable.isUnpaged()) {
+			return new SliceImpl<>(jpaQuery.fetch());
+		}
+
+		List<T> content = getQuerydsl().applyPagination(pageable, jpaQuery)
+				.limit(pageable.getPageSize() + 1)
+				.fetch();
+		return toSlice(content, pageable);
+	}
+
+	/**
+	 * Keyset(seek) pagination : offset 없이 seek 조건으로 다음 페이지의 시작 위치를 찾아가므로 깊은 페이지도 첫 페이지와 비용이 같다.
+	 * size + 1 건을 조회해서 다음 페이지 존재 여부를 판단한다.
+	 *
+	 * @param size page size
+	 * @param seekPredicate {@link #keysetAfter} 로 만든 조건, 첫 페이지는 {@literal null}
+	 * @param orders seek 조건과 같은 순서/방향의 정렬 조건
+	 */
+	protected <T> Slice<T> applyKeysetPagination(int size,
+												 @Nullable Predicate seekPredicate,
+												 OrderSpecifier<?>[] orders,
+												 Function<JPAQueryFactory, JPAQuery> contentQuery) {
+		JPAQuery<T> jpaQuery = contentQuery.apply(getQueryFactory());
+		List<T> content = jpaQuery
+				.where(seekPredicate)
+				.orderBy(orders)
+				.limit(size + 1)
+				.fetch();
+
+		return toSlice(content, PageRequest.ofSize(size));
+	}
+
+	// 한 건 더 조회한 결과로 다음 페이지 여부를 판단하고 넘치는 한 건은 버린다.
+	private <T> Slice<T> toSlice(List<T> content, Pageable pageable) {
+		boolean hasNext = content.size() > pageable.getPageSize();
+		if (hasNext) {
+			content = new ArrayList<>(content.subList(0, pageable.getPageSize()));
+		}
+		return new SliceImpl<>(content, pageable, hasNext);
+	}
+
+	/**
+	 * (sortKey, id) > (lastValue, lastId) 의 row value 비교를 JPQL로 풀어쓴 seek 조건
+	 * sortKey > :lastValue or (sortKey = :lastValue and id > :lastId)
+	 * 내림차순이면 부등호 방향이 반대가 된다.
+	 */
+	public static <S> BooleanExpression keysetAfter(Expression<S> sortKey, S lastValue,
+													Expression<Long> id, Long lastId,
+													boolean ascending) {
+		Ops direction = ascending ? Ops.GT : Ops.LT;
+		BooleanExpression idAfter = Expressions.booleanOperation(direction, id, Expressions.constant(lastId));
+		if (sortKey.equals(id)) {
+			return idAfter;
+		}
+
+		Expression<S> last = Expressions.constant(lastValue);
+		return Expressions.booleanOperation(direction, sortKey, last)
+				.or(Expressions.booleanOperation(Ops.EQ, sortKey, last).and(idAfter));
 	}
 }
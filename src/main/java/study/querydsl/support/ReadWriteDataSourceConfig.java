@@ -0,0 +1,72 @@
+package study.querydsl.support;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * primary / replica 두 개의 커넥션 풀과 readOnly 트랜잭션 라우팅 (querydsl.datasource.routing.enabled)
+ * primary 는 기존 spring.datasource.hikari 설정을 그대로 쓰고, replica 는 querydsl.datasource.replica 로 설정한다.
+ *
+ * readWriteDataSource(Lazy) -> readWriteRoutingDataSource(p6spy 로 감싸짐) -> primary / replica 풀
+ * p6spy 는 커넥션을 얻자마자 메타데이터를 조회하므로 Lazy 프록시보다 안쪽에 있어야 한다.
+ * 그래서 바깥 readWriteDataSource 는 decorator.datasource.exclude-beans 로 p6spy 대상에서 뺀다.
+ * 두 풀은 빈으로 등록하지 않는다. p6spy 가 DataSource 빈마다 감싸면 같은 SQL 이벤트가 두 번 잡히기 때문
+ */
+@Configuration
+@ConditionalOnProperty(name = "querydsl.datasource.routing.enabled", havingValue = "true")
+public class ReadWriteDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariConfig primaryHikariConfig() {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("primary");
+        return config;
+    }
+
+    @Bean
+    @ConfigurationProperties("querydsl.datasource.replica")
+    public HikariConfig replicaHikariConfig() {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("replica");
+        config.setReadOnly(true);
+        return config;
+    }
+
+    @Bean
+    public ReplicaStickiness replicaStickiness(@Value("${querydsl.datasource.routing.sticky-window:5s}") Duration stickyWindow) {
+        return new ReplicaStickiness(stickyWindow);
+    }
+
+    @Bean
+    @Primary
+    public DataSource readWriteDataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(ReplicaStickiness replicaStickiness,
+                                                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariConfig primaryConfig = primaryHikariConfig();
+        HikariConfig replicaConfig = replicaHikariConfig();
+        // 풀이 빈이 아니라서 hikaricp.connections 메트릭을 직접 연결한다. (pool 태그 : primary, replica)
+        meterRegistry.ifAvailable(registry -> {
+            primaryConfig.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            replicaConfig.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        });
+        return new ReadWriteRoutingDataSource(new HikariDataSource(primaryConfig), new HikariDataSource(replicaConfig), replicaStickiness);
+    }
+}
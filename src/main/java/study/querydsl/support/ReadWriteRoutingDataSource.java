@@ -0,0 +1,81 @@
+package study.querydsl.support;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * readOnly 트랜잭션은 replica, 나머지(쓰기 트랜잭션, 트랜잭션 밖)는 primary 로 보내는 DataSource
+ * 트랜잭션 매니저는 readOnly 여부가 정해지기 전에 커넥션부터 얻으므로 반드시 LazyConnectionDataSourceProxy 로 감싸서
+ * 첫 statement 실행 시점에 커넥션을 얻도록 해야 한다. (ReadWriteDataSourceConfig)
+ * 쓰기 직후에는 replica 복제 지연 때문에 방금 쓴 데이터가 안 보일 수 있으므로
+ * ReplicaStickiness 의 시간 창 동안은 readOnly 라도 primary 로 보낸다. (read-your-writes)
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    public enum Target {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final HikariDataSource primary;
+    private final HikariDataSource replica;
+    private final ReplicaStickiness stickiness;
+
+    private final Map<Target, LongAdder> routed = new EnumMap<>(Target.class);
+    private final LongAdder sticky = new LongAdder();
+
+    public ReadWriteRoutingDataSource(HikariDataSource primary, HikariDataSource replica, ReplicaStickiness stickiness) {
+        this.primary = primary;
+        this.replica = replica;
+        this.stickiness = stickiness;
+        for (Target target : Target.values()) {
+            routed.put(target, new LongAdder());
+        }
+
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    /**
+     * 현재 스레드에서 커넥션을 얻는다면 어느 쪽으로 가는지
+     */
+    public Target currentTarget() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Target.PRIMARY;
+        }
+        return stickiness.isSticky() ? Target.PRIMARY : Target.REPLICA;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Target target = currentTarget();
+        routed.get(target).increment();
+        if (target == Target.PRIMARY && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            sticky.increment();
+        }
+        return target;
+    }
+
+    public long getRoutedCount(Target target) {
+        return routed.get(target).sum();
+    }
+
+    /**
+     * readOnly 였지만 쓰기 직후라서 primary 로 보낸 횟수
+     */
+    public long getStickyCount() {
+        return sticky.sum();
+    }
+
+    @Override
+    public void close() {
+        replica.close();
+        primary.close();
+    }
+}
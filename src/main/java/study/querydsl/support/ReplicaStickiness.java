@@ -0,0 +1,139 @@
+package study.querydsl.support;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * 쓰기 직후 일정 시간(window) 동안 readOnly 조회도 primary 로 보내기 위한 표시 (read-your-writes)
+ * 웹 요청 안에서는 요청 attribute 와 쿠키로, 요청 밖(배치, 테스트)에서는 스레드 단위로 기억한다.
+ * 쿠키 덕분에 같은 클라이언트의 다음 요청도 window 가 끝날 때까지 primary 에서 읽는다.
+ * 쓰기 여부는 EntityChangeEvent (insert/update/delete, bulk 연산) 로 판단한다.
+ * 요청을 다른 스레드에서 처리할 때(SearchBulkhead)는 capture() 한 값을 callWith() 로 넘긴다.
+ */
+public class ReplicaStickiness {
+
+    static final String COOKIE_NAME = "primary-until";
+    private static final String ATTRIBUTE_NAME = ReplicaStickiness.class.getName() + ".primaryUntil";
+
+    private final long windowMillis;
+    private final ThreadLocal<Long> primaryUntil = new ThreadLocal<>();
+
+    public ReplicaStickiness(Duration window) {
+        this.windowMillis = window.toMillis();
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        markWritten();
+    }
+
+    public void markWritten() {
+        long until = System.currentTimeMillis() + windowMillis;
+
+        ServletRequestAttributes attributes = currentRequest();
+        if (attributes == null) {
+            primaryUntil.set(until);
+            return;
+        }
+        attributes.setAttribute(ATTRIBUTE_NAME, until, RequestAttributes.SCOPE_REQUEST);
+
+        // 응답이 이미 나가기 시작했으면 쿠키는 못 붙인다. (이번 요청 안에서만 유효)
+        HttpServletResponse response = attributes.getResponse();
+        if (response != null && !response.isCommitted()) {
+            Cookie cookie = new Cookie(COOKIE_NAME, String.valueOf(until));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, (windowMillis + 999) / 1000));
+            response.addCookie(cookie);
+        }
+    }
+
+    public boolean isSticky() {
+        Long until = primaryUntil();
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    /**
+     * 현재 요청(쿠키 포함) 또는 스레드의 표시 : 없으면 0
+     * 요청 스레드에서 꺼내서 다른 스레드의 callWith() 로 넘긴다.
+     * async 요청은 요청 스레드가 먼저 끝나고 그 뒤로는 RequestAttributes 를 읽을 수 없으므로 값만 넘긴다.
+     */
+    public long capture() {
+        Long until = primaryUntil();
+        return until == null ? 0L : until;
+    }
+
+    /**
+     * capture() 한 표시를 현재 스레드에 두고 실행한다. 끝나면 스레드의 원래 표시로 되돌린다. (풀 스레드 재사용)
+     */
+    public <T> T callWith(long until, Supplier<T> work) {
+        Long previous = primaryUntil.get();
+        primaryUntil.set(until);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                primaryUntil.remove();
+            } else {
+                primaryUntil.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 현재 요청(쿠키 포함) 또는 스레드의 표시를 지운다.
+     */
+    public void clear() {
+        primaryUntil.remove();
+        ServletRequestAttributes attributes = currentRequest();
+        if (attributes != null) {
+            attributes.setAttribute(ATTRIBUTE_NAME, 0L, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    private Long primaryUntil() {
+        ServletRequestAttributes attributes = currentRequest();
+        if (attributes == null) {
+            return primaryUntil.get();
+        }
+
+        Long until = (Long) attributes.getAttribute(ATTRIBUTE_NAME, RequestAttributes.SCOPE_REQUEST);
+        if (until == null) {
+            until = fromCookie(attributes.getRequest());
+            // 요청당 한 번만 파싱 : 없으면 0 으로 기억
+            attributes.setAttribute(ATTRIBUTE_NAME, until == null ? 0L : until, RequestAttributes.SCOPE_REQUEST);
+        }
+        return until;
+    }
+
+    private Long fromCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    // 클라이언트가 보낸 값이므로 window 보다 길게 잡지 못하게 자른다.
+                    return Math.min(Long.parseLong(cookie.getValue()), System.currentTimeMillis() + windowMillis);
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private ServletRequestAttributes currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes ? (ServletRequestAttributes) attributes : null;
+    }
+}
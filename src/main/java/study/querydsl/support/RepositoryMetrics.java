@@ -0,0 +1,123 @@
+package study.querydsl.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * repository 메서드 메트릭
+ * - querydsl.repository.invocations : 실행 시간 (repository, method, shape, exception)
+ * - querydsl.repository.rows : 조회 건수 (repository, method, shape)
+ * - querydsl.repository.count-query : Page 조회의 count query 실행/생략 횟수 (repository, outcome)
+ * percentile / histogram 은 management.metrics.distribution 설정으로 켠다.
+ * 모든 repository 호출마다 기록하므로 meter 는 태그 조합별로 한 번만 등록하고 재사용한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetrics {
+
+    public static final String INVOCATIONS = "querydsl.repository.invocations";
+    public static final String ROWS = "querydsl.repository.rows";
+    public static final String COUNT_QUERY = "querydsl.repository.count-query";
+
+    private final MeterRegistry registry;
+
+    private final Map<List<String>, MethodMeters> methodMeters = new ConcurrentHashMap<>();
+    private final Map<String, CountQueryMeters> countQueryMeters = new ConcurrentHashMap<>();
+
+    public void record(String repository, String method, String shape,
+                       long elapsedNanos, @Nullable Throwable error, @Nullable Object result) {
+        MethodMeters meters = methodMeters.computeIfAbsent(Arrays.asList(repository, method, shape), MethodMeters::new);
+        meters.invocations(error).record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        long rows = rows(result);
+        if (error == null && rows >= 0) {
+            meters.rows.record(rows);
+        }
+    }
+
+    /**
+     * PageableExecutionUtils.getPage 와 같지만 count query 가 생략되었는지를 기록한다.
+     */
+    public <T> Page<T> getPage(String repository, List<T> content, Pageable pageable, LongSupplier totalCount) {
+        boolean[] executed = new boolean[1];
+        Page<T> page = PageableExecutionUtils.getPage(content, pageable, () -> {
+            executed[0] = true;
+            return totalCount.getAsLong();
+        });
+
+        CountQueryMeters meters = countQueryMeters.computeIfAbsent(repository, CountQueryMeters::new);
+        (executed[0] ? meters.executed : meters.skipped).increment();
+        return page;
+    }
+
+    private class MethodMeters {
+        private final Tags tags;
+        private final Timer success;
+        private final DistributionSummary rows;
+        // 예외 클래스 이름별 Timer
+        private final Map<String, Timer> failures = new ConcurrentHashMap<>();
+
+        private MethodMeters(List<String> key) {
+            this.tags = Tags.of("repository", key.get(0), "method", key.get(1), "shape", key.get(2));
+            this.success = invocations("none");
+            this.rows = DistributionSummary.builder(ROWS)
+                    .baseUnit("rows")
+                    .tags(tags)
+                    .register(registry);
+        }
+
+        private Timer invocations(@Nullable Throwable error) {
+            return error == null ? success : failures.computeIfAbsent(error.getClass().getSimpleName(), this::invocations);
+        }
+
+        private Timer invocations(String exception) {
+            return Timer.builder(INVOCATIONS)
+                    .tags(tags)
+                    .tag("exception", exception)
+                    .register(registry);
+        }
+    }
+
+    private class CountQueryMeters {
+        private final Counter executed;
+        private final Counter skipped;
+
+        private CountQueryMeters(String repository) {
+            this.executed = Counter.builder(COUNT_QUERY).tags("repository", repository, "outcome", "executed").register(registry);
+            this.skipped = Counter.builder(COUNT_QUERY).tags("repository", repository, "outcome", "skipped").register(registry);
+        }
+    }
+
+    // 건수를 알 수 없는 결과는 -1
+    private static long rows(@Nullable Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,64 @@
+package study.querydsl.support;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Proxy;
+
+/**
+ * study.querydsl.repository 의 public 메서드 호출마다 {@link RepositoryMetrics} 에 기록
+ * 검색 조건은 값 대신 {@link SearchShape#shape()} 만 태그로 남긴다.
+ * custom 구현체(impl 패키지)는 MemberRepository 호출에서 이미 기록되므로 제외한다.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetricsAspect {
+
+    private static final String NO_SHAPE = "none";
+
+    private final RepositoryMetrics repositoryMetrics;
+
+    @Around("execution(public * study.querydsl.repository.*.*(..)) && !within(study.querydsl.repository.impl..*)")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        Object result = null;
+        Throwable error = null;
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } catch (Throwable e) {
+            error = e;
+            throw e;
+        } finally {
+            repositoryMetrics.record(repositoryName(joinPoint.getTarget()),
+                    joinPoint.getSignature().getName(),
+                    shape(joinPoint.getArgs()),
+                    System.nanoTime() - start,
+                    error,
+                    result);
+        }
+    }
+
+    private static String repositoryName(Object target) {
+        Class<?> type = ClassUtils.getUserClass(target);
+        // Spring Data repository 는 JDK proxy : 첫 번째 interface 가 repository interface (MemberRepository)
+        if (Proxy.isProxyClass(type) && type.getInterfaces().length > 0) {
+            type = type.getInterfaces()[0];
+        }
+        return type.getSimpleName();
+    }
+
+    private static String shape(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof SearchShape) {
+                return ((SearchShape) arg).shape();
+            }
+        }
+        return NO_SHAPE;
+    }
+}
@@ -0,0 +1,74 @@
+package study.querydsl.support;
+
+import com.querydsl.jpa.JPQLQuery;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * 페이징 없는 목록 조회의 결과 건수 제한 (querydsl.search-guard.max-rows)
+ * limit(max + 1) 로 조회해서 max 를 넘는 순간 결과를 버리고 SearchLimitExceededException : 테이블 전체가 힙에 올라오지 않는다.
+ * 조건이 하나도 없는 검색은 결과 건수와 상관없이 실행하지 않는다.
+ * 큰 결과는 페이징(/v2/**, /v3/members)이나 export(/v1/members/export) 를 사용할 것
+ *
+ * - querydsl.search-guard.rejected : 거절 횟수 (name, reason=unfiltered|overflow)
+ */
+@Component
+public class ResultSizeGuard {
+
+    public static final String REJECTED = "querydsl.search-guard.rejected";
+
+    private final MeterRegistry registry;
+    private final int maxRows;
+    private final Map<List<String>, Counter> rejectedCounters = new ConcurrentHashMap<>();
+
+    public ResultSizeGuard(MeterRegistry registry,
+                           @Value("${querydsl.search-guard.max-rows:10000}") int maxRows) {
+        this.registry = registry;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * @param name 검색 이름 (메트릭 태그, 에러 메시지)
+     * @param condition 검색 조건 : 조건이 없으면 실행하지 않는다.
+     * @param query limit 을 걸지 않은 목록 조회 (JPAQueryFactory, QuerydslRepositorySupport.from 모두)
+     */
+    public <T> List<T> fetch(String name, SearchShape condition, JPQLQuery<T> query) {
+        return fetch(name, condition, limit -> query.limit(limit).fetch());
+    }
+
+    /**
+     * @param query limit 을 받아서 실행하는 목록 조회 ex) 컴파일된 QueryTemplate
+     */
+    public <T> List<T> fetch(String name, SearchShape condition, IntFunction<List<T>> query) {
+        if (condition.isUnfiltered()) {
+            rejected(name, "unfiltered");
+            throw new SearchLimitExceededException(name + " requires at least one search condition without paging");
+        }
+
+        List<T> results = query.apply(maxRows + 1);
+        if (results.size() > maxRows) {
+            rejected(name, "overflow");
+            throw new SearchLimitExceededException(name + " matched more than " + maxRows + " rows, use paging or export");
+        }
+        return results;
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    private void rejected(String name, String reason) {
+        rejectedCounters.computeIfAbsent(Arrays.asList(name, reason), key -> Counter.builder(REJECTED)
+                        .tags("name", name, "reason", reason)
+                        .register(registry))
+                .increment();
+    }
+}
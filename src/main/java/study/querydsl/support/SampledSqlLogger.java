@@ -0,0 +1,189 @@
+package study.querydsl.support;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * p6spy 의 모든 SQL 로그 대신 일부만 남기는 SQL 로거
+ * 실행 스레드는 샘플링 여부만 판단하고 고정 크기 버퍼에 넣기만 한다. (가득 차면 버린다.)
+ * 실제 로그 출력은 별도의 daemon 스레드가 버퍼를 비우면서 한다.
+ * 모드/샘플링 비율/느린 쿼리 기준은 /admin/sql-log 로 실행 중에 바꿀 수 있다.
+ */
+@Slf4j
+@Component
+public class SampledSqlLogger extends SimpleJdbcEventListener implements DisposableBean {
+
+    public enum Mode {
+        // 로그 없음
+        OFF,
+        // slow-threshold 이상 걸린 쿼리만
+        SLOW,
+        // 느린 쿼리 + sample-rate 건 중 한 건
+        SAMPLED,
+        // 전부 (디버깅용)
+        ALL
+    }
+
+    private static final int DRAIN_BATCH = 256;
+
+    private volatile Mode mode;
+    private volatile int sampleRate;
+    private volatile long slowThresholdNanos;
+
+    private final BlockingQueue<SqlLogEntry> buffer;
+    private final Thread drainer;
+    private volatile boolean running = true;
+
+    private final LongAdder sampled = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder logged = new LongAdder();
+
+    public SampledSqlLogger(@Value("${querydsl.sql-log.mode:SAMPLED}") Mode mode,
+                            @Value("${querydsl.sql-log.sample-rate:100}") int sampleRate,
+                            @Value("${querydsl.sql-log.slow-threshold:200ms}") Duration slowThreshold,
+                            @Value("${querydsl.sql-log.buffer-size:10000}") int bufferSize) {
+        configure(mode, sampleRate, slowThreshold);
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+
+        this.drainer = new Thread(this::drain, "sql-log-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    public void configure(Mode mode, int sampleRate, Duration slowThreshold) {
+        Assert.notNull(mode, "Mode must not be null!");
+        Assert.isTrue(sampleRate > 0, "Sample rate must be positive");
+        this.mode = mode;
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        Mode current = mode;
+        if (current == Mode.OFF) {
+            return;
+        }
+
+        boolean slow = timeElapsedNanos >= slowThresholdNanos;
+        if (!slow && !isSampled(current, e)) {
+            return;
+        }
+
+        // 바인딩 값이 들어간 SQL 문자열은 샘플링된 경우에만 만든다.
+        SqlLogEntry entry = new SqlLogEntry(timeElapsedNanos, slow, e, statementInformation.getSqlWithValues());
+        if (buffer.offer(entry)) {
+            sampled.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    // 실패한 쿼리는 항상 남긴다.
+    private boolean isSampled(Mode current, SQLException e) {
+        if (e != null || current == Mode.ALL) {
+            return true;
+        }
+        // 공유 카운터 대신 스레드별 난수 : 실행 스레드끼리 경합하지 않는다.
+        return current == Mode.SAMPLED && ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+    }
+
+    private void drain() {
+        List<SqlLogEntry> batch = new ArrayList<>(DRAIN_BATCH);
+        while (running) {
+            try {
+                SqlLogEntry first = buffer.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, DRAIN_BATCH - 1);
+                for (SqlLogEntry entry : batch) {
+                    write(entry);
+                }
+                logged.add(batch.size());
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Failed to write sql log", e);
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(SqlLogEntry entry) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(entry.elapsedNanos);
+        if (entry.error != null) {
+            log.warn("[sql] {}ms failed({}) {}", millis, entry.error.getMessage(), entry.sql);
+        } else if (entry.slow) {
+            log.warn("[sql] {}ms slow {}", millis, entry.sql);
+        } else {
+            log.info("[sql] {}ms {}", millis, entry.sql);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        drainer.interrupt();
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public Duration getSlowThreshold() {
+        return Duration.ofNanos(slowThresholdNanos);
+    }
+
+    public long getSampledCount() {
+        return sampled.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getLoggedCount() {
+        return logged.sum();
+    }
+
+    public int getBufferedCount() {
+        return buffer.size();
+    }
+
+    private static class SqlLogEntry {
+        private final long elapsedNanos;
+        private final boolean slow;
+        private final SQLException error;
+        private final String sql;
+
+        private SqlLogEntry(long elapsedNanos, boolean slow, SQLException error, String sql) {
+            this.elapsedNanos = elapsedNanos;
+            this.slow = slow;
+            this.error = error;
+            this.sql = sql;
+        }
+    }
+}
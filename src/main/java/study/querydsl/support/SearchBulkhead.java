@@ -0,0 +1,109 @@
+package study.querydsl.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 검색 전용 bulkhead executor
+ * 느린 검색(count query 등)이 Tomcat worker 스레드를 전부 잡고 있으면 /hello 같은 다른 요청까지 막히므로
+ * 검색은 이 executor 에서 실행하고 worker 스레드는 바로 돌려준다. (async controller)
+ * 스레드 수는 JDBC 커넥션 풀 크기에 맞춘다. 더 늘려도 커넥션을 기다리기만 한다.
+ * 큐가 가득 차면 기다리게 하지 않고 바로 거절(SearchRejectedException : 503)한다.
+ * 검색 스레드에는 요청 정보(RequestContextHolder)가 없으므로 라우팅 사용 시 요청의 ReplicaStickiness 를 넘겨서 실행한다.
+ *
+ * - querydsl.search-bulkhead.queue : 대기 중인 검색 수
+ * - querydsl.search-bulkhead.active : 실행 중인 검색 수
+ * - querydsl.search-bulkhead.wait : 큐에서 기다린 시간
+ * - querydsl.search-bulkhead.rejected : 거절 횟수
+ */
+@Component
+public class SearchBulkhead implements DisposableBean {
+
+    public static final String QUEUE = "querydsl.search-bulkhead.queue";
+    public static final String ACTIVE = "querydsl.search-bulkhead.active";
+    public static final String WAIT = "querydsl.search-bulkhead.wait";
+    public static final String REJECTED = "querydsl.search-bulkhead.rejected";
+
+    private final ThreadPoolExecutor executor;
+    private final Timer waitTimer;
+    private final Counter rejected;
+    @Nullable
+    private final ReplicaStickiness stickiness;
+
+    /**
+     * @param stickiness 라우팅(querydsl.datasource.routing.enabled)을 사용하지 않으면 null
+     */
+    public SearchBulkhead(MeterRegistry registry,
+                          @Nullable ReplicaStickiness stickiness,
+                          @Value("${querydsl.search-bulkhead.pool-size:${spring.datasource.hikari.maximum-pool-size:10}}") int poolSize,
+                          @Value("${querydsl.search-bulkhead.queue-capacity:100}") int queueCapacity) {
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new SearchThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder(QUEUE, executor, e -> e.getQueue().size()).register(registry);
+        Gauge.builder(ACTIVE, executor, ThreadPoolExecutor::getActiveCount).register(registry);
+        this.waitTimer = Timer.builder(WAIT)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+        this.rejected = Counter.builder(REJECTED).register(registry);
+        this.stickiness = stickiness;
+    }
+
+    /**
+     * @throws SearchRejectedException 큐가 가득 찼을 때 : 요청 스레드에서 바로 던진다.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> search) {
+        long submittedAt = System.nanoTime();
+        // 쓰기 직후(read-your-writes)인지는 요청 스레드에서 읽어둔다.
+        long primaryUntil = stickiness == null ? 0L : stickiness.capture();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return stickiness == null ? search.get() : stickiness.callWith(primaryUntil, search);
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new SearchRejectedException("Search queue is full (" + executor.getQueue().size() + " waiting)", e);
+        }
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private static class SearchThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "search-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
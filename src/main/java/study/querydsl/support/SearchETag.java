@@ -0,0 +1,104 @@
+package study.querydsl.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 회원 검색 endpoint 의 ETag / 조건부 GET (If-None-Match -> 304)
+ * ETag = 기동 시각 + member/team 테이블 버전 + 검색 이름, 정규화된 조건, 페이징, Accept 의 digest
+ * 테이블 버전은 Member/Team 의 EntityChangeEvent 마다 올라간다. (엔티티 리스너, Querydsl4RepositorySupport bulk 연산)
+ * 304 는 DB 조회 없이 바로 반환한다.
+ *
+ * 버전은 프로세스 메모리에만 있으므로 다른 인스턴스나 애플리케이션 밖에서 바꾼 데이터는 알지 못한다. (SearchResultCache 와 같은 전제)
+ * 기동 시각이 들어가므로 재시작하면 이전 ETag 는 모두 무효
+ *
+ * 라우팅(querydsl.datasource.routing.enabled) 사용 시 버전은 primary 커밋 기준인데 replica 는 복제 지연만큼 늦을 수 있다.
+ * replica 에서 읽은 옛날 결과에 새 버전의 ETag 를 붙이면 다음 쓰기 전까지 그 결과가 304 로 계속 재사용되므로
+ * ETag 는 primary 에서 읽는 요청(쓰기 직후 ReplicaStickiness 창 안)에만 준다. 나머지는 ETag 없이 매번 조회
+ *
+ * - querydsl.search-etag.requests : 조건부 GET 결과 (name, result=not-modified|modified|replica)
+ */
+@Component
+public class SearchETag {
+
+    public static final String REQUESTS = "querydsl.search-etag.requests";
+
+    private final MeterRegistry registry;
+    @Nullable
+    private final ReplicaStickiness stickiness;
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+    private final Map<String, ETagMeters> meters = new ConcurrentHashMap<>();
+
+    /**
+     * @param stickiness 라우팅을 사용하지 않으면 null : 모든 조회가 primary
+     */
+    public SearchETag(MeterRegistry registry, @Nullable ReplicaStickiness stickiness) {
+        this.registry = registry;
+        this.stickiness = stickiness;
+    }
+
+    /**
+     * 검색을 실행하기 전에 호출 : 버전을 먼저 읽어야 조회 도중에 바뀐 데이터가 다음 요청에서 304 로 가려지지 않는다.
+     * 바뀌지 않았으면 304 를 설정하고 true (핸들러는 null 을 반환하면 된다.) 아니면 응답에 ETag 헤더를 설정하고 false
+     * replica 에서 읽을 요청이면 If-None-Match 를 보지 않고 ETag 도 설정하지 않고 false
+     *
+     * @param name 검색 이름 ex) v1-members
+     * @param key 정규화된 검색 조건 + 페이징 ex) [MemberSearchConditionKey, Pageable]
+     */
+    public boolean checkNotModified(WebRequest request, String name, Object key) {
+        ETagMeters eTagMeters = meters.computeIfAbsent(name, ETagMeters::new);
+        if (stickiness != null && !stickiness.isSticky()) {
+            eTagMeters.replica.increment();
+            return false;
+        }
+
+        boolean notModified = request.checkNotModified(eTag(name, key, request.getHeader(HttpHeaders.ACCEPT)));
+        (notModified ? eTagMeters.notModified : eTagMeters.modified).increment();
+        return notModified;
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        Class<?> entityType = event.getEntityType();
+        if (Member.class.isAssignableFrom(entityType) || Team.class.isAssignableFrom(entityType)) {
+            version.incrementAndGet();
+        }
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    String eTag(String name, Object key, String accept) {
+        // 같은 URL 이라도 Accept 에 따라 표현이 다르다. (JSON / application/x-member-columnar)
+        String digest = DigestUtils.md5DigestAsHex((name + '|' + key + '|' + accept).getBytes(StandardCharsets.UTF_8));
+        return "\"" + epoch + '-' + version.get() + '-' + digest + "\"";
+    }
+
+    private class ETagMeters {
+        private final Counter notModified;
+        private final Counter modified;
+        private final Counter replica;
+
+        private ETagMeters(String name) {
+            this.notModified = Counter.builder(REQUESTS).tags("name", name, "result", "not-modified").register(registry);
+            this.modified = Counter.builder(REQUESTS).tags("name", name, "result", "modified").register(registry);
+            this.replica = Counter.builder(REQUESTS).tags("name", name, "result", "replica").register(registry);
+        }
+    }
+}
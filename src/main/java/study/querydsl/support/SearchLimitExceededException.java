@@ -0,0 +1,15 @@
+package study.querydsl.support;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 페이징 없는 검색이 조건 없이 들어왔거나 결과 건수 제한을 넘은 경우 : 조건을 더 주거나 페이징을 사용하도록 400
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class SearchLimitExceededException extends RuntimeException {
+
+    public SearchLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package study.querydsl.support;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 검색 bulkhead 큐가 가득 차서 실행하지 못한 요청 : 잠시 후 다시 시도하도록 503
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class SearchRejectedException extends RuntimeException {
+
+    public SearchRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,243 @@
+package study.querydsl.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * 검색 결과 캐시 : 같은 조건으로 반복되는 조회(대시보드 등)의 결과를 그대로 재사용한다.
+ * CountQueryCache 와 같이 크기(LRU)와 TTL 로 제한하고, 엔티티 변경 이벤트(bulk update/delete 포함)가 오면 전부 비운다.
+ * 항목 수만으로는 힙 사용량이 정해지지 않으므로(목록 하나가 search-guard.max-rows 까지 가능) 캐시된 결과의 row 수 합계도
+ * max-rows 로 제한한다. 넘으면 오래 안 쓴 항목부터 버리고, 혼자서 max-rows 를 넘는 결과는 캐시하지 않는다.
+ * 캐시 이름(endpoint) 단위로 끌 수 있다. : querydsl.search-cache.disabled, PUT /admin/search-cache
+ * 캐시된 결과는 여러 요청이 공유하므로 변경할 수 없는 형태(unmodifiable List, Page)로 넣어야 한다.
+ * 라우팅 사용 시 쓰기 직후(ReplicaStickiness)인 조회는 replica 에서 읽은 결과를 받으면 안 되므로 sticky 여부별로 따로 캐시한다.
+ */
+@Component
+public class SearchResultCache {
+
+    public static final String REQUESTS = "querydsl.search-cache.requests";
+    public static final String HIT_RATIO = "querydsl.search-cache.hit-ratio";
+    public static final String ROWS = "querydsl.search-cache.rows";
+
+    private final MeterRegistry registry;
+    @Nullable
+    private final ReplicaStickiness stickiness;
+    private final int maxSize;
+    private final long maxRows;
+    private final long ttlNanos;
+
+    private final Map<List<Object>, CachedResult> cache;
+    // 캐시된 결과의 row 수 합계 (cache 잠금 안에서만 변경)
+    private long cachedRows;
+    // 무효화 세대 : 조회 도중에 무효화가 일어났으면 그 결과는 캐시에 넣지 않는다.
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Set<String> disabled = ConcurrentHashMap.newKeySet();
+    private final Map<String, CacheMeters> meters = new ConcurrentHashMap<>();
+
+    /**
+     * @param stickiness 라우팅(querydsl.datasource.routing.enabled)을 사용하지 않으면 null
+     */
+    public SearchResultCache(MeterRegistry registry,
+                             @Nullable ReplicaStickiness stickiness,
+                             @Value("${querydsl.search-cache.max-size:1000}") int maxSize,
+                             @Value("${querydsl.search-cache.max-rows:100000}") long maxRows,
+                             @Value("${querydsl.search-cache.ttl:10s}") Duration ttl,
+                             @Value("${querydsl.search-cache.disabled:}") Set<String> disabled) {
+        this.registry = registry;
+        this.stickiness = stickiness;
+        this.maxSize = maxSize;
+        this.maxRows = maxRows;
+        this.ttlNanos = ttl.toNanos();
+        this.disabled.addAll(disabled);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, CachedResult> eldest) {
+                if (size() > SearchResultCache.this.maxSize) {
+                    cachedRows -= eldest.getValue().rows;
+                    return true;
+                }
+                return false;
+            }
+        };
+        Gauge.builder(ROWS, this, SearchResultCache::getCachedRows).register(registry);
+    }
+
+    /**
+     * @param name 캐시 이름 (endpoint 단위로 켜고 끄는 단위)
+     * @param key 정규화된 검색 조건 + 페이징 ex) [MemberSearchConditionKey, Pageable]
+     * @param search 캐시에 없을 때 실행할 조회
+     * @param rows 결과의 row 수 ex) List::size
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String name, Object key, Supplier<T> search, ToIntFunction<? super T> rows) {
+        CacheMeters cacheMeters = meters(name);
+        if (disabled.contains(name)) {
+            cacheMeters.bypass.increment();
+            return search.get();
+        }
+
+        boolean sticky = stickiness != null && stickiness.isSticky();
+        List<Object> cacheKey = Arrays.asList(name, key, sticky);
+        long now = System.nanoTime();
+
+        synchronized (cache) {
+            CachedResult cached = cache.get(cacheKey);
+            if (cached != null && cached.expiresAt - now > 0) {
+                cacheMeters.hit.increment();
+                return (T) cached.result;
+            }
+        }
+
+        cacheMeters.miss.increment();
+        long startGeneration = generation.get();
+        T result = search.get();
+
+        int resultRows = rows.applyAsInt(result);
+        if (resultRows > maxRows) {
+            cacheMeters.oversized.increment();
+            return result;
+        }
+
+        synchronized (cache) {
+            if (generation.get() == startGeneration) {
+                CachedResult previous = cache.put(cacheKey, new CachedResult(result, resultRows, now + ttlNanos));
+                cachedRows += resultRows - (previous == null ? 0 : previous.rows);
+                evictOverRows();
+            }
+        }
+        return result;
+    }
+
+    @EventListener
+    public void invalidate(EntityChangeEvent event) {
+        synchronized (cache) {
+            generation.incrementAndGet();
+            cache.clear();
+            cachedRows = 0;
+        }
+    }
+
+    public void setEnabled(String name, boolean enabled) {
+        if (enabled) {
+            disabled.remove(name);
+        } else {
+            disabled.add(name);
+            // 꺼진 캐시의 항목은 더 이상 쓰이지 않으므로 비운다.
+            synchronized (cache) {
+                cache.entrySet().removeIf(entry -> {
+                    if (!entry.getKey().get(0).equals(name)) {
+                        return false;
+                    }
+                    cachedRows -= entry.getValue().rows;
+                    return true;
+                });
+            }
+        }
+    }
+
+    public boolean isEnabled(String name) {
+        return !disabled.contains(name);
+    }
+
+    /**
+     * 사용된 적이 있거나 꺼져 있는 캐시 이름별 사용 여부
+     */
+    public Map<String, Boolean> getSwitches() {
+        Map<String, Boolean> switches = new TreeMap<>();
+        meters.keySet().forEach(name -> switches.put(name, true));
+        disabled.forEach(name -> switches.put(name, false));
+        return switches;
+    }
+
+    public long getHitCount(String name) {
+        return (long) meters(name).hit.count();
+    }
+
+    public long getMissCount(String name) {
+        return (long) meters(name).miss.count();
+    }
+
+    public int size(String name) {
+        synchronized (cache) {
+            return (int) cache.keySet().stream()
+                    .filter(cacheKey -> cacheKey.get(0).equals(name))
+                    .count();
+        }
+    }
+
+    /**
+     * 캐시된 결과의 row 수 합계
+     */
+    public long getCachedRows() {
+        synchronized (cache) {
+            return cachedRows;
+        }
+    }
+
+    // access order 라서 iterator 의 앞쪽이 오래 안 쓴 항목
+    private void evictOverRows() {
+        Iterator<CachedResult> eldest = cache.values().iterator();
+        while (cachedRows > maxRows && eldest.hasNext()) {
+            cachedRows -= eldest.next().rows;
+            eldest.remove();
+        }
+    }
+
+    private CacheMeters meters(String name) {
+        return meters.computeIfAbsent(name, CacheMeters::new);
+    }
+
+    private class CacheMeters {
+        private final Counter hit;
+        private final Counter miss;
+        private final Counter bypass;
+        private final Counter oversized;
+
+        private CacheMeters(String name) {
+            this.hit = Counter.builder(REQUESTS).tags("name", name, "result", "hit").register(registry);
+            this.miss = Counter.builder(REQUESTS).tags("name", name, "result", "miss").register(registry);
+            this.bypass = Counter.builder(REQUESTS).tags("name", name, "result", "bypass").register(registry);
+            // max-rows 를 넘어서 캐시하지 않은 결과
+            this.oversized = Counter.builder(REQUESTS).tags("name", name, "result", "oversized").register(registry);
+            Gauge.builder(HIT_RATIO, this, CacheMeters::hitRatio)
+                    .tag("name", name)
+                    .register(registry);
+        }
+
+        private double hitRatio() {
+            double total = hit.count() + miss.count();
+            return total == 0 ? 0 : hit.count() / total;
+        }
+    }
+
+    private static class CachedResult {
+        private final Object result;
+        private final int rows;
+        private final long expiresAt;
+
+        private CachedResult(Object result, int rows, long expiresAt) {
+            this.result = result;
+            this.rows = rows;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
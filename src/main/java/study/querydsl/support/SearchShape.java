@@ -0,0 +1,17 @@
+package study.querydsl.support;
+
+/**
+ * 검색 조건의 모양 : 값이 아니라 어떤 조건이 들어왔는지만 나타낸다.
+ * 메트릭 태그로 쓰이므로 경우의 수가 조건 조합 수로 제한되어야 한다. (값을 넣으면 안 된다.)
+ */
+public interface SearchShape {
+
+    String shape();
+
+    /**
+     * 결과를 좁히는 조건이 하나도 없는 전체 조회인지 : 페이징 없이는 실행하지 않는다. (ResultSizeGuard)
+     */
+    default boolean isUnfiltered() {
+        return "empty".equals(shape());
+    }
+}
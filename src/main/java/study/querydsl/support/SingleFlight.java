@@ -0,0 +1,122 @@
+package study.querydsl.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 동시에 들어온 같은 검색을 한 번만 실행하고 결과를 나눠 갖는다. (single-flight)
+ * 처음 온 호출(leader)이 자기 스레드에서 실행하고, 실행 중에 들어온 같은 키의 호출은 그 결과를 기다린다.
+ * 실행이 끝나면 바로 in-flight 에서 빠지므로 결과를 보관하지는 않는다. (보관은 SearchResultCache)
+ *
+ * 트랜잭션 밖(controller)에서만 사용할 것
+ * - 기다리는 호출이 트랜잭션 안이면 커넥션을 잡은 채로 기다리게 되어 leader 가 커넥션을 못 얻을 수 있다.
+ * - 자기 트랜잭션에서 아직 커밋하지 않은 변경이 다른 호출의 결과에는 보이지 않는다.
+ *
+ * 라우팅 사용 시 쓰기 직후(ReplicaStickiness)인 호출은 primary 에서 읽어야 하므로 replica 에서 읽는 호출과는 묶지 않는다.
+ * (sticky 여부가 키에 들어간다.)
+ *
+ * - querydsl.single-flight.calls : 호출 수 (name, role=leader|collapsed)
+ */
+@Component
+public class SingleFlight {
+
+    public static final String CALLS = "querydsl.single-flight.calls";
+
+    private final MeterRegistry registry;
+    @Nullable
+    private final ReplicaStickiness stickiness;
+
+    private final Map<List<Object>, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, FlightMeters> meters = new ConcurrentHashMap<>();
+
+    /**
+     * @param stickiness 라우팅(querydsl.datasource.routing.enabled)을 사용하지 않으면 null
+     */
+    public SingleFlight(MeterRegistry registry, @Nullable ReplicaStickiness stickiness) {
+        this.registry = registry;
+        this.stickiness = stickiness;
+    }
+
+    /**
+     * @param name 검색 이름 ex) v2-complex-members
+     * @param key 정규화된 검색 조건 + 페이징 ex) [MemberSearchConditionKey, Pageable]
+     * @param search 실행 중인 같은 검색이 없을 때 실행할 조회
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String name, Object key, Supplier<T> search) {
+        boolean sticky = stickiness != null && stickiness.isSticky();
+        List<Object> flightKey = Arrays.asList(name, key, sticky);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+
+        // putIfAbsent : 락 없이 CAS 로 leader 를 정한다.
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, flight);
+        if (existing != null) {
+            meters(name).collapsed.increment();
+            return (T) join(existing);
+        }
+
+        meters(name).leader.increment();
+        try {
+            T result = search.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    public long getLeaderCount(String name) {
+        return (long) meters(name).leader.count();
+    }
+
+    public long getCollapsedCount(String name) {
+        return (long) meters(name).collapsed.count();
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private Object join(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            // leader 가 던진 예외를 그대로 던진다.
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private FlightMeters meters(String name) {
+        return meters.computeIfAbsent(name, FlightMeters::new);
+    }
+
+    private class FlightMeters {
+        private final Counter leader;
+        private final Counter collapsed;
+
+        private FlightMeters(String name) {
+            this.leader = Counter.builder(CALLS).tags("name", name, "role", "leader").register(registry);
+            this.collapsed = Counter.builder(CALLS).tags("name", name, "role", "collapsed").register(registry);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package study.querydsl.support;
+
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.dsl.Param;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link QueryTemplate} 에 바인딩할 값
+ * null 값은 바인딩하지 않고, 바인딩된 Param 의 이름 목록이 곧 조건의 모양(shape)이 된다.
+ * ex) username, teamName 이 있는 검색과 teamName 만 있는 검색은 서로 다른 템플릿을 사용한다.
+ */
+public class TemplateParameters {
+
+    private final Map<ParamExpression<?>, Object> values = new LinkedHashMap<>();
+
+    public <T> TemplateParameters set(Param<T> param, @Nullable T value) {
+        if (value != null) {
+            values.put(param, value);
+        }
+        return this;
+    }
+
+    public boolean has(Param<?> param) {
+        return values.containsKey(param);
+    }
+
+    /**
+     * 템플릿 캐시 키 : 값이 아니라 어떤 Param 이 바인딩되었는지만 본다.
+     */
+    public List<String> shape() {
+        List<String> shape = new ArrayList<>(values.size());
+        for (ParamExpression<?> param : values.keySet()) {
+            shape.add(param.getName());
+        }
+        return shape;
+    }
+
+    Map<ParamExpression<?>, Object> getValues() {
+        return values;
+    }
+}
@@ -0,0 +1,108 @@
+package study.querydsl.entity;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * READ_WRITE 캐시는 트랜잭션 시작 이후에 들어간 항목을 같은 트랜잭션에서 읽지 않으므로
+ * 요청마다 트랜잭션이 새로 열리는 것처럼 TransactionTemplate 으로 나눠서 실행하고, 데이터는 직접 지운다.
+ */
+@SpringBootTest
+class TeamCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    Statistics statistics;
+    Cache cache;
+    Long teamAId;
+
+    @BeforeEach
+    void before() {
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        cache = em.getEntityManagerFactory().getCache();
+
+        teamAId = transactionTemplate.execute(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+            return teamA.getId();
+        });
+        cache.evictAll();
+    }
+
+    @AfterEach
+    void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            new JPAQueryFactory(em).delete(member).execute();
+            new JPAQueryFactory(em).delete(team).execute();
+        });
+        cache.evictAll();
+    }
+
+    @Test
+    public void listMembersWithTeam() {
+        // 캐시가 비어 있으면 : 회원 목록 1 + 팀 지연 로딩 2
+        assertThat(listMembersWithTeamStatements()).isEqualTo(3);
+
+        // 다음 요청부터 팀은 2차 캐시에서 : 회원 목록 1
+        assertThat(listMembersWithTeamStatements()).isEqualTo(1);
+    }
+
+    @Test
+    public void bulkUpdateEvictsTeam() {
+        transactionTemplate.executeWithoutResult(status -> em.find(Team.class, teamAId));
+        assertThat(cache.contains(Team.class, teamAId)).isTrue();
+
+        // JPQL bulk update 는 영속성 컨텍스트와 2차 캐시를 거치지 않으므로 Hibernate 가 team region 을 비운다.
+        long updated = transactionTemplate.execute(status -> new JPAQueryFactory(em)
+                .update(team)
+                .set(team.name, "teamX")
+                .where(team.id.eq(teamAId))
+                .execute());
+        assertThat(updated).isEqualTo(1);
+        assertThat(cache.contains(Team.class, teamAId)).isFalse();
+
+        String name = transactionTemplate.execute(status -> em.find(Team.class, teamAId).getName());
+        assertThat(name).isEqualTo("teamX");
+    }
+
+    private long listMembersWithTeamStatements() {
+        return transactionTemplate.execute(status -> {
+            long before = statistics.getPrepareStatementCount();
+
+            List<Member> members = new JPAQueryFactory(em)
+                    .selectFrom(member)
+                    .orderBy(member.username.asc())
+                    .fetch();
+            for (Member m : members) {
+                m.getTeam().getName();
+            }
+
+            return statistics.getPrepareStatementCount() - before;
+        });
+    }
+}
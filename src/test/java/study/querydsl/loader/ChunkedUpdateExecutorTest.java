@@ -0,0 +1,169 @@
+package study.querydsl.loader;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.BulkUpdateProgress;
+import study.querydsl.entity.Member;
+import study.querydsl.support.EntityChangePublisher;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QBulkUpdateProgress.bulkUpdateProgress;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 구간마다 커밋하므로 트랜잭션 롤백 대신 직접 데이터를 지운다.
+ */
+@SpringBootTest
+class ChunkedUpdateExecutorTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    EntityChangePublisher entityChangePublisher;
+
+    ChunkedUpdateExecutor executor;
+
+    @BeforeEach
+    void before() {
+        executor = new ChunkedUpdateExecutor(em, transactionManager, entityChangePublisher, 2, 0);
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < 5; i++) {
+                em.persist(new Member("member" + i, i * 10));
+            }
+        });
+    }
+
+    @AfterEach
+    void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            new JPAQueryFactory(em).delete(member).execute();
+            new JPAQueryFactory(em).delete(bulkUpdateProgress).execute();
+        });
+    }
+
+    @Test
+    public void resumeAfterInterrupt() {
+        // 첫 구간을 커밋한 직후 중단되는 실행
+        ChunkedUpdateExecutor interrupted = new ChunkedUpdateExecutor(em, transactionManager,
+                new EntityChangePublisher(event -> {}) {
+                    @Override
+                    public void changed(Class<?> entityType) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, 2, 0);
+
+        ChunkedUpdateResult stopped;
+        try {
+            stopped = interrupted.execute("addAge", member, member.id, member.age.goe(10),
+                    clause -> clause.set(member.age, member.age.add(1)));
+        } finally {
+            Thread.interrupted();
+        }
+        assertThat(stopped.isCompleted()).isFalse();
+        assertThat(stopped.getChunks()).isEqualTo(1);
+
+        // 다시 실행하면 남은 구간부터
+        ChunkedUpdateResult resumed = executor.execute("addAge", member, member.id, member.age.goe(10),
+                clause -> clause.set(member.age, member.age.add(1)));
+        assertThat(resumed.isCompleted()).isTrue();
+        assertThat(resumed.getChunks()).isEqualTo(2);
+        assertThat(stopped.getUpdatedRows() + resumed.getUpdatedRows()).isEqualTo(4);
+
+        // 완료된 작업은 다시 실행되지 않는다.
+        ChunkedUpdateResult again = executor.execute("addAge", member, member.id, member.age.goe(10),
+                clause -> clause.set(member.age, member.age.add(1)));
+        assertThat(again.getChunks()).isZero();
+
+        List<Integer> ages = transactionTemplate.execute(status -> new JPAQueryFactory(em)
+                .select(member.age)
+                .from(member)
+                .orderBy(member.id.asc())
+                .fetch());
+        assertThat(ages).containsExactly(0, 11, 21, 31, 41);
+
+        BulkUpdateProgress progress = transactionTemplate.execute(status -> em.find(BulkUpdateProgress.class, "addAge"));
+        assertThat(progress.getUpdatedRows()).isEqualTo(4);
+        assertThat(progress.isCompleted()).isTrue();
+    }
+
+    @Test
+    public void concurrentRunnersApplyEachChunkOnce() {
+        // 첫 구간을 커밋한 직후 같은 jobName 의 다른 실행이 끼어들어 나머지 구간을 끝낸다.
+        ChunkedUpdateExecutor[] other = new ChunkedUpdateExecutor[1];
+        ChunkedUpdateResult[] otherResult = new ChunkedUpdateResult[1];
+        ChunkedUpdateExecutor first = new ChunkedUpdateExecutor(em, transactionManager,
+                new EntityChangePublisher(event -> {}) {
+                    @Override
+                    public void changed(Class<?> entityType) {
+                        if (otherResult[0] == null) {
+                            otherResult[0] = other[0].execute("addAge", member, member.id, null,
+                                    clause -> clause.set(member.age, member.age.add(1)));
+                        }
+                    }
+                }, 2, 0);
+        other[0] = new ChunkedUpdateExecutor(em, transactionManager, entityChangePublisher, 2, 0);
+
+        ChunkedUpdateResult result = first.execute("addAge", member, member.id, null,
+                clause -> clause.set(member.age, member.age.add(1)));
+
+        // 끼어든 실행이 진행 상황을 옮겼으므로 먼저 시작한 실행은 같은 구간을 다시 적용하지 않고 멈춘다.
+        assertThat(result.getChunks()).isEqualTo(1);
+        assertThat(result.isCompleted()).isFalse();
+        assertThat(otherResult[0].getChunks()).isEqualTo(2);
+        assertThat(otherResult[0].isCompleted()).isTrue();
+        assertThat(result.getUpdatedRows() + otherResult[0].getUpdatedRows()).isEqualTo(5);
+
+        assertThat(ages()).containsExactly(1, 11, 21, 31, 41);
+    }
+
+    @Test
+    public void parallelRunners() throws Exception {
+        ChunkedUpdateExecutor oneByOne = new ChunkedUpdateExecutor(em, transactionManager, entityChangePublisher, 1, 0);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<ChunkedUpdateResult>> results = pool.invokeAll(List.of(
+                    () -> oneByOne.execute("addAge", member, member.id, null,
+                            clause -> clause.set(member.age, member.age.add(1))),
+                    () -> executor.execute("addAge", member, member.id, null,
+                            clause -> clause.set(member.age, member.age.add(1)))));
+
+            long updatedRows = 0;
+            for (Future<ChunkedUpdateResult> result : results) {
+                updatedRows += result.get().getUpdatedRows();
+            }
+            assertThat(updatedRows).isEqualTo(5);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // 어느 쪽이 먼저 멈추든 각 row 는 한 번만 증가
+        assertThat(ages()).containsExactly(1, 11, 21, 31, 41);
+    }
+
+    private List<Integer> ages() {
+        return transactionTemplate.execute(status -> new JPAQueryFactory(em)
+                .select(member.age)
+                .from(member)
+                .orderBy(member.id.asc())
+                .fetch());
+    }
+}
@@ -0,0 +1,121 @@
+package study.querydsl.loader;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Team;
+import study.querydsl.support.EntityChangePublisher;
+import study.querydsl.support.SearchETag;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * chunk 마다 커밋하므로 트랜잭션 롤백 대신 적재한 데이터를 직접 지운다.
+ */
+@SpringBootTest
+class MemberBulkLoaderTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    EntityChangePublisher entityChangePublisher;
+
+    @Autowired
+    SearchETag searchETag;
+
+    MemberBulkLoader memberBulkLoader;
+
+    // 적재 전 최대 id : 이후 id 만 지운다. (local 프로필 초기 데이터는 남긴다.)
+    long lastMemberId;
+    long lastTeamId;
+
+    @BeforeEach
+    void before() {
+        // chunk 1000 명마다 커밋
+        memberBulkLoader = new MemberBulkLoader(em, transactionManager, entityChangePublisher, 100, 1000);
+        lastMemberId = maxId(true);
+        lastTeamId = maxId(false);
+    }
+
+    @AfterEach
+    void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            new JPAQueryFactory(em).delete(member).where(member.id.gt(lastMemberId)).execute();
+            new JPAQueryFactory(em).delete(team).where(team.id.gt(lastTeamId)).execute();
+        });
+    }
+
+    @Test
+    public void load() {
+        // member/team 테이블 버전은 EntityChangeEvent 마다 올라간다.
+        long version = searchETag.getVersion();
+
+        BulkLoadResult result = memberBulkLoader.load(2500, 3);
+        assertThat(result.getMemberCount()).isEqualTo(2500);
+        assertThat(result.getRowsPerSecond()).isPositive();
+
+        Long teamCCount = transactionTemplate.execute(status -> new JPAQueryFactory(em)
+                .select(member.count())
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.eq("teamC"), team.id.gt(lastTeamId))
+                .fetchOne());
+        // member2, member5, ... : 3명마다 한 명
+        assertThat(teamCCount).isEqualTo(833);
+
+        // row 마다가 아니라 팀 적재 한 번 + 회원 chunk(1000) 세 번
+        assertThat(searchETag.getVersion()).isEqualTo(version + 4);
+    }
+
+    @Test
+    public void commitPerChunkInsideTransaction() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team outer = new Team("outerTeam");
+            em.persist(outer);
+
+            memberBulkLoader.load(2500, 3);
+
+            // chunk 트랜잭션의 flush/clear 는 호출한 쪽의 영속성 컨텍스트를 건드리지 않는다.
+            assertThat(em.contains(outer)).isTrue();
+            status.setRollbackOnly();
+        });
+
+        // 바깥 트랜잭션이 롤백돼도 chunk 마다 커밋된 회원은 남는다.
+        Long loaded = transactionTemplate.execute(status -> new JPAQueryFactory(em)
+                .select(member.count())
+                .from(member)
+                .where(member.id.gt(lastMemberId))
+                .fetchOne());
+        assertThat(loaded).isEqualTo(2500);
+
+        Long outerTeams = transactionTemplate.execute(status -> new JPAQueryFactory(em)
+                .select(team.count())
+                .from(team)
+                .where(team.name.eq("outerTeam"))
+                .fetchOne());
+        assertThat(outerTeams).isZero();
+    }
+
+    private long maxId(boolean ofMember) {
+        Long maxId = transactionTemplate.execute(status -> ofMember
+                ? new JPAQueryFactory(em).select(member.id.max()).from(member).fetchOne()
+                : new JPAQueryFactory(em).select(team.id.max()).from(team).fetchOne());
+        return maxId == null ? 0 : maxId;
+    }
+}
@@ -0,0 +1,241 @@
+package study.querydsl.repository;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.PagingStrategy;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 검색 조건의 모양마다 실제로 실행된 SQL 을 EXPLAIN 해서 인덱스를 타는지 확인한다.
+ */
+@SpringBootTest
+@Transactional
+class MemberIndexTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @Autowired
+    SqlCapture sqlCapture;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 100; i++) {
+            em.persist(new Member("member" + i, i, i % 2 == 0 ? teamA : teamB));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void username() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+
+        assertThat(explainSearch(condition)).contains("IDX_MEMBER_USERNAME");
+    }
+
+    @Test
+    public void teamName() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        // inner join 이므로 team 을 먼저 찾고 team_id 인덱스로 회원을 찾는다. (left join 이면 member 전체 스캔)
+        String plan = explainSearch(condition);
+        assertThat(plan).contains("IDX_TEAM_NAME");
+        assertThat(plan).contains("TEAM_ID = TEAM1_.ID");
+    }
+
+    @Test
+    public void teamNameV1() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        // /v1/members, /v1/members/export 와 MemberQueryRepository 도 같은 inner join
+        for (Runnable search : List.<Runnable>of(
+                () -> memberJpaRepository.search(condition),
+                () -> memberJpaRepository.searchByBuilder(condition),
+                () -> memberJpaRepository.stream(condition, row -> {}),
+                () -> memberQueryRepository.search(condition))) {
+            sqlCapture.clear();
+            search.run();
+            String sql = sqlCapture.last("select");
+            assertThat(sql).contains("inner join");
+            String plan = explain(sql);
+            assertThat(plan).contains("IDX_TEAM_NAME");
+            assertThat(plan).doesNotContain("tableScan");
+        }
+    }
+
+    @Test
+    public void ageRange() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(10);
+        condition.setAgeLoe(20);
+
+        assertThat(explainSearch(condition)).contains("IDX_MEMBER_AGE");
+    }
+
+    @Test
+    public void usernameAndTeamName() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+        condition.setTeamName("teamB");
+
+        assertThat(explainSearch(condition)).containsAnyOf("IDX_MEMBER_USERNAME", "IDX_TEAM_NAME");
+    }
+
+    @Test
+    public void teamNameCount() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        sqlCapture.clear();
+        memberRepository.searchPageComplex(condition, PageRequest.of(0, 10));
+
+        String countSql = sqlCapture.last("count(");
+        assertThat(countSql).contains("inner join");
+        assertThat(explain(countSql)).contains("IDX_TEAM_NAME");
+    }
+
+    @Test
+    public void simplePageCount() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(10);
+
+        sqlCapture.clear();
+        Page<MemberTeamDto> result = memberRepository.searchPageSimple(condition, PageRequest.of(0, 10));
+        assertThat(result.getTotalElements()).isEqualTo(90);
+
+        // fetchResults() 처럼 projection 을 감싸지 않고 count(id), team 조건이 없으면 join 없음
+        String countSql = sqlCapture.last("count(");
+        assertThat(countSql).contains("count(member0_.member_id)");
+        assertThat(countSql).doesNotContain("join");
+
+        condition.setTeamName("teamA");
+        sqlCapture.clear();
+        assertThat(memberRepository.searchPageSimple(condition, PageRequest.of(0, 10)).getTotalElements()).isEqualTo(45);
+        assertThat(sqlCapture.last("count(")).contains("inner join");
+    }
+
+    @Test
+    public void deferredJoinWithoutTeam() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(10);
+        condition.setAgeLoe(20);
+
+        sqlCapture.clear();
+        Page<MemberTeamDto> result = memberTestRepository.searchPageMemberTeam(condition,
+                PageRequest.of(1, 3, Sort.by(Sort.Direction.DESC, "age")), PagingStrategy.DEFERRED_JOIN);
+        assertThat(result.getContent()).extracting("age").containsExactly(17, 16, 15);
+        assertThat(result.getTotalElements()).isEqualTo(11);
+
+        // team 조건이 없으면 1단계 id 조회와 count 는 member 만으로 실행 (team join 없음)
+        String idSql = sqlCapture.last("offset");
+        assertThat(idSql).doesNotContain("join");
+        assertThat(explain(idSql)).contains("IDX_MEMBER_AGE");
+        String countSql = sqlCapture.last("count(");
+        assertThat(countSql).contains("count(member0_.member_id)");
+        assertThat(countSql).doesNotContain("join");
+
+        // 2단계는 projection 이 team 을 참조하므로 left join
+        assertThat(sqlCapture.last(" in (")).contains("left outer join");
+    }
+
+    private String explainSearch(MemberSearchCondition condition) {
+        sqlCapture.clear();
+        memberRepository.search(condition);
+        String plan = explain(sqlCapture.last("select"));
+        assertThat(plan).doesNotContain("tableScan");
+        return plan;
+    }
+
+    private String explain(String sql) {
+        String plan = em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("explain " + sql);
+                 ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getString(1);
+            }
+        });
+        System.out.println("plan = " + plan);
+        return plan;
+    }
+
+    @TestConfiguration
+    static class SqlCaptureConfig {
+
+        @Bean
+        SqlCapture sqlCapture() {
+            return new SqlCapture();
+        }
+    }
+
+    /**
+     * p6spy 로 실행된 SQL 을 모은다.
+     * 인덱스 선택은 바인딩 값과 상관없으므로 ? 그대로 EXPLAIN 한다. (H2 는 바인딩 없이도 실행 계획을 보여준다.)
+     */
+    static class SqlCapture extends SimpleJdbcEventListener {
+
+        private final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+            // use_sql_comments 로 붙는 JPQL 주석은 뺀다.
+            statements.add(statementInformation.getSql().replaceFirst("(?s)^\\s*/\\*.*?\\*/", "").trim());
+        }
+
+        void clear() {
+            statements.clear();
+        }
+
+        String last(String contains) {
+            for (int i = statements.size() - 1; i >= 0; i--) {
+                String sql = statements.get(i);
+                if (sql.contains(contains) && !sql.startsWith("explain")) {
+                    return sql;
+                }
+            }
+            throw new IllegalStateException("No statement contains " + contains);
+        }
+    }
+}
@@ -8,8 +8,10 @@ import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.support.QueryTemplateCache;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -24,6 +26,9 @@ class MemberJpaRepositoryTest {
     @Autowired
     MemberJpaRepository memberJpaRepository;
 
+    @Autowired
+    QueryTemplateCache queryTemplateCache;
+
     @Test
     public void basicTest() {
         Member member = new Member("member1", 10);
@@ -87,5 +92,42 @@ class MemberJpaRepositoryTest {
                 .extracting("username")
                 .containsExactly("member4");
 
+        // 같은 모양의 다음 검색은 컴파일된 템플릿에 값만 바인딩 (QueryTemplateCache hit)
+        long misses = queryTemplateCache.getMissCount();
+        long hits = queryTemplateCache.getHitCount();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(15);
+        condition.setAgeLoe(15);
+        assertThat(memberJpaRepository.search(condition))
+                .extracting("username")
+                .containsExactly("member2");
+        assertThat(queryTemplateCache.getMissCount()).isEqualTo(misses);
+        assertThat(queryTemplateCache.getHitCount()).isEqualTo(hits + 1);
+
+        // team 조건이 빠지면 다른 모양 (left join 템플릿)
+        condition.setTeamName(null);
+        assertThat(memberJpaRepository.search(condition))
+                .extracting("username")
+                .containsExactly("member2", "member3", "member4");
+        assertThat(queryTemplateCache.getMissCount()).isEqualTo(misses + 1);
+    }
+
+    @Test
+    public void streamTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("member" + i, i, teamA));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        List<MemberTeamDto> rows = new ArrayList<>();
+        long count = memberJpaRepository.stream(condition, rows::add);
+
+        assertThat(count).isEqualTo(10);
+        assertThat(rows).isEqualTo(memberJpaRepository.search(condition));
     }
-}
\ No newline at end of file
+}
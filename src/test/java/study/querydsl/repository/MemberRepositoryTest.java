@@ -1,25 +1,45 @@
 package study.querydsl.repository;
 
+import com.querydsl.jpa.impl.JPAQuery;
+import io.micrometer.core.instrument.MeterRegistry;
+import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
+import study.querydsl.support.ConcurrentCountExecutor;
+import study.querydsl.support.CountQueryBuilder;
+import study.querydsl.support.CountQueryCache;
+import study.querydsl.support.InvalidCursorException;
+import study.querydsl.support.PagingStrategy;
+import study.querydsl.support.QueryTemplateCache;
+import study.querydsl.support.RepositoryMetrics;
 
 import javax.persistence.EntityManager;
 import javax.transaction.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.*;
 import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
 
 @SpringBootTest
 @Transactional
@@ -37,6 +57,18 @@ class MemberRepositoryTest {
     @Autowired
     MemberTestRepository memberTestRepository;
 
+    @Autowired
+    CountQueryCache countQueryCache;
+
+    @Autowired
+    QueryTemplateCache queryTemplateCache;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
     @Test
     @Rollback
     public void basicTest() {
@@ -150,6 +182,348 @@ class MemberRepositoryTest {
                 .containsExactly("member1");
     }
 
+    @Test
+    public void countQueryBuilderTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamB));
+        em.persist(new Member("member3", 30, null));
+
+        JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+
+        // team 조건이 없으면 join 없이 count
+        JPAQuery<Long> withoutTeam = new CountQueryBuilder(queryFactory, member, member.id)
+                .leftJoin(member.team, team)
+                .where(member.age.goe(20), null)
+                .build();
+        assertThat(withoutTeam.toString()).doesNotContain("join");
+        assertThat(withoutTeam.fetchOne()).isEqualTo(2);
+
+        JPAQuery<Long> withTeam = new CountQueryBuilder(queryFactory, member, member.id)
+                .leftJoin(member.team, team)
+                .where(member.age.goe(20), team.name.eq("teamB"))
+                .build();
+        assertThat(withTeam.toString()).contains("left join member1.team as team");
+        assertThat(withTeam.fetchOne()).isEqualTo(1);
+    }
+
+    @Test
+    public void concurrentCountTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(40);
+
+        double skipped = meterRegistry.get(ConcurrentCountExecutor.SKIPPED).counter().count();
+
+        // 첫 페이지가 덜 찼으므로 count 결과는 필요 없다. (별도 커넥션에서 실행된 count 는 취소)
+        Page<Member> result = memberTestRepository.applyPaginationConcurrently(condition, PageRequest.of(0, 10));
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        assertThat(result.getContent())
+                .extracting("username")
+                .containsExactly("member1", "member2");
+        assertThat(meterRegistry.get(ConcurrentCountExecutor.SKIPPED).counter().count()).isEqualTo(skipped + 1);
+    }
+
+    @Test
+    public void searchPagingStrategyTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        for (int i = 1; i <= 10; i++) {
+            em.persist(new Member("member" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(100);
+        PageRequest pageRequest = PageRequest.of(1, 3, Sort.by(Sort.Direction.DESC, "age"));
+
+        Page<MemberTeamDto> single = memberTestRepository.searchPageMemberTeam(condition, pageRequest, PagingStrategy.SINGLE_QUERY);
+        Page<MemberTeamDto> deferred = memberTestRepository.searchPageMemberTeam(condition, pageRequest, PagingStrategy.DEFERRED_JOIN);
+
+        // id 로 다시 조회해도 1단계의 정렬 순서가 유지되어야 한다.
+        assertThat(deferred.getContent())
+                .extracting("username")
+                .containsExactly("member7", "member6", "member5");
+        assertThat(deferred.getContent()).isEqualTo(single.getContent());
+        assertThat(deferred.getTotalElements()).isEqualTo(10);
+        assertThat(single.getTotalElements()).isEqualTo(10);
+    }
+
+    @Test
+    public void searchSliceTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        Slice<MemberTeamDto> first = memberRepository.searchSlice(condition, PageRequest.of(0, 2));
+        assertThat(first.hasNext()).isTrue();
+        assertThat(first.getContent())
+                .extracting("username")
+                .containsExactly("member1", "member2");
+
+        Slice<MemberTeamDto> last = memberRepository.searchSlice(condition, PageRequest.of(1, 2));
+        assertThat(last.hasNext()).isFalse();
+        assertThat(last.getContent())
+                .extracting("username")
+                .containsExactly("member3");
+
+        // Querydsl4RepositorySupport 기반
+        condition.setAgeLoe(30);
+        Slice<Member> result = memberTestRepository.searchSlice(condition, PageRequest.of(0, 3));
+        assertThat(result.hasNext()).isFalse();
+        assertThat(result.getContent()).hasSize(3);
+    }
+
+    @Test
+    public void searchKeysetTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 30, teamB);
+
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        MemberCursor first = MemberCursor.first(Sort.by(Sort.Direction.DESC, "age"));
+
+        Slice<MemberTeamDto> page1 = memberRepository.searchKeyset(condition, first, 3);
+        assertThat(page1.hasNext()).isTrue();
+        assertThat(page1.getContent())
+                .extracting("username")
+                .containsExactly("member4", "member3", "member2");
+
+        // 커서는 문자열로 왕복해도 같은 위치를 가리켜야 한다.
+        MemberCursor next = MemberCursor.decode(first.next(page1.getContent().get(2)).encode());
+        Slice<MemberTeamDto> page2 = memberRepository.searchKeyset(condition, next, 3);
+        assertThat(page2.hasNext()).isFalse();
+        assertThat(page2.getContent())
+                .extracting("username")
+                .containsExactly("member1");
+
+        // Querydsl4RepositorySupport 기반
+        condition.setAgeLoe(40);
+        Slice<Member> result = memberTestRepository.searchKeyset(condition, first, 3);
+        assertThat(result.getContent())
+                .extracting("username")
+                .containsExactly("member4", "member3", "member2");
+
+        // 클라이언트가 보낸 잘못된 커서, nullable 컬럼(username) 정렬은 400
+        assertThatThrownBy(() -> MemberCursor.decode("not-a-cursor"))
+                .isInstanceOf(InvalidCursorException.class);
+        String badAge = Base64.getUrlEncoder().encodeToString("age:DESC:1:thirty".getBytes(StandardCharsets.UTF_8));
+        assertThatThrownBy(() -> MemberCursor.decode(badAge))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> MemberCursor.first(Sort.by("username")))
+                .isInstanceOf(InvalidCursorException.class);
+        ResponseStatus status = AnnotatedElementUtils.findMergedAnnotation(InvalidCursorException.class, ResponseStatus.class);
+        assertThat(status.code()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    public void countCacheTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(0, 2);
+
+        long hits = countQueryCache.getHitCount();
+        long misses = countQueryCache.getMissCount();
+
+        assertThat(memberRepository.searchPageComplex(condition, pageRequest).getTotalElements()).isEqualTo(3);
+
+        // 공백 username 은 조건 없음과 같은 키
+        condition.setUsername(" ");
+        assertThat(memberRepository.searchPageComplex(condition, pageRequest).getTotalElements()).isEqualTo(3);
+        assertThat(countQueryCache.getMissCount()).isEqualTo(misses + 1);
+        assertThat(countQueryCache.getHitCount()).isEqualTo(hits + 1);
+
+        // insert 가 일어나면 캐시가 비워지고 다시 count
+        em.persist(new Member("member4", 40, teamA));
+        assertThat(memberRepository.searchPageComplex(condition, pageRequest).getTotalElements()).isEqualTo(4);
+        assertThat(countQueryCache.getMissCount()).isEqualTo(misses + 2);
+
+        // 앞뒤 공백이 있는 팀명은 다른 조건 : 캐시된 "teamA" 의 count 를 받으면 안 된다.
+        Team paddedTeam = new Team(" teamA");
+        em.persist(paddedTeam);
+        em.persist(new Member("member5", 50, paddedTeam));
+        em.persist(new Member("member6", 60, paddedTeam));
+        condition.setUsername(null);
+        condition.setTeamName("teamA");
+        assertThat(memberRepository.searchPageComplex(condition, pageRequest).getTotalElements()).isEqualTo(4);
+        condition.setTeamName(" teamA");
+        assertThat(memberRepository.searchPageComplex(condition, pageRequest).getTotalElements()).isEqualTo(2);
+        assertThat(countQueryCache.getMissCount()).isEqualTo(misses + 4);
+    }
+
+    @Test
+    public void queryTemplateTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(15);
+        condition.setAgeLoe(40);
+        condition.setTeamName("teamB");
+
+        long misses = queryTemplateCache.getMissCount();
+        long hits = queryTemplateCache.getHitCount();
+
+        List<MemberTeamDto> result = memberTestRepository.searchByTemplate(condition);
+        assertThat(result).extracting("username").containsExactly("member3", "member4");
+        assertThat(result).usingRecursiveFieldByFieldElementComparator()
+                .isEqualTo(memberJpaRepository.searchByBuilder(condition));
+
+        // 같은 모양, 다른 값 : 컴파일된 템플릿 재사용
+        condition.setTeamName("teamA");
+        assertThat(memberTestRepository.searchByTemplate(condition))
+                .extracting("username")
+                .containsExactly("member2");
+        assertThat(queryTemplateCache.getMissCount()).isEqualTo(misses + 1);
+        assertThat(queryTemplateCache.getHitCount()).isEqualTo(hits + 1);
+
+        // 다른 모양 : 새 템플릿
+        condition.setTeamName(" ");
+        condition.setAgeGoe(null);
+        assertThat(memberTestRepository.searchByTemplate(condition))
+                .usingRecursiveFieldByFieldElementComparator()
+                .isEqualTo(memberJpaRepository.searchByBuilder(condition));
+        assertThat(queryTemplateCache.getMissCount()).isEqualTo(misses + 2);
+    }
+
+    @Test
+    public void repositoryMetricsTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        double searchCount = timerCount("MemberRepository", "search", "teamName");
+        double ageSearchCount = timerCount("MemberRepository", "search", "teamName+ageGoe");
+        double skipped = countQuery("MemberRepository", "skipped");
+
+        assertThat(memberRepository.search(condition)).hasSize(2);
+        // 첫 페이지가 다 차지 않았으므로 count query 생략
+        assertThat(memberRepository.searchPageComplex(condition, PageRequest.of(0, 10)).getTotalElements()).isEqualTo(2);
+        memberRepository.findByUsername("member1");
+
+        // 태그에는 값이 아니라 조건의 모양만 남는다. (기본값 0 인 ageGoe, ageLoe 는 조건이 아님)
+        assertThat(timerCount("MemberRepository", "search", "teamName")).isEqualTo(searchCount + 1);
+        condition.setAgeGoe(15);
+        assertThat(memberRepository.search(condition)).hasSize(1);
+        assertThat(memberRepository.search(condition)).hasSize(1);
+        assertThat(timerCount("MemberRepository", "search", "teamName+ageGoe")).isEqualTo(ageSearchCount + 2);
+        // 같은 태그 조합은 같은 Timer 를 재사용
+        assertThat(meterRegistry.find(RepositoryMetrics.INVOCATIONS)
+                .tags("repository", "MemberRepository", "method", "search", "shape", "teamName+ageGoe", "exception", "none")
+                .timers()).hasSize(1);
+        assertThat(meterRegistry.get(RepositoryMetrics.ROWS)
+                .tags("repository", "MemberRepository", "method", "search", "shape", "teamName")
+                .summary().max()).isEqualTo(2);
+        assertThat(timerCount("MemberRepository", "findByUsername", "none")).isGreaterThanOrEqualTo(1);
+        assertThat(countQuery("MemberRepository", "skipped")).isEqualTo(skipped + 1);
+    }
+
+    private double timerCount(String repository, String method, String shape) {
+        return meterRegistry.find(RepositoryMetrics.INVOCATIONS)
+                .tags("repository", repository, "method", method, "shape", shape)
+                .timers().stream()
+                .mapToDouble(timer -> timer.count())
+                .sum();
+    }
+
+    private double countQuery(String repository, String outcome) {
+        return meterRegistry.find(RepositoryMetrics.COUNT_QUERY)
+                .tags("repository", repository, "outcome", outcome)
+                .counters().stream()
+                .mapToDouble(counter -> counter.count())
+                .sum();
+    }
+
+    @Test
+    public void bulkUpdateWithoutClear() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamA);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.flush();
+
+        // flush 전의 변경은 bulk 전에 반영되어야 한다.
+        member3.setUsername("renamed");
+
+        long count = memberTestRepository.bulkAddAge(20, 1);
+        assertThat(count).isEqualTo(2);
+
+        // 대상만 refresh, 나머지는 그대로 관리 상태
+        assertThat(member1.getAge()).isEqualTo(10);
+        assertThat(member2.getAge()).isEqualTo(21);
+        assertThat(member3.getAge()).isEqualTo(31);
+        assertThat(member3.getUsername()).isEqualTo("renamed");
+        assertThat(em.contains(member1)).isTrue();
+        assertThat(em.contains(teamA)).isTrue();
+        assertThat(em.find(Member.class, member2.getId())).isSameAs(member2);
+    }
+
+    @Test
+    public void bulkDeleteWithoutClear() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        em.persist(member1);
+        em.persist(member2);
+        em.flush();
+
+        assertThat(memberTestRepository.bulkDeleteByAgeGoe(20)).isEqualTo(1);
+
+        assertThat(em.contains(member1)).isTrue();
+        assertThat(em.contains(member2)).isFalse();
+        assertThat(em.find(Member.class, member2.getId())).isNull();
+    }
+
     @Test
     public void querydslPredicateExecutorTest() {
         Team teamA = new Team("teamA");
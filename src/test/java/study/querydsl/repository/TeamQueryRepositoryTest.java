@@ -0,0 +1,61 @@
+package study.querydsl.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class TeamQueryRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TeamQueryRepository teamQueryRepository;
+
+    @Test
+    public void findTeamsWithMembers() {
+        for (int t = 0; t < 6; t++) {
+            Team team = new Team("team" + t);
+            em.persist(team);
+            for (int m = 0; m < 3; m++) {
+                em.persist(new Member("member" + t + "-" + m, m * 10, team));
+            }
+        }
+        em.flush();
+        em.clear();
+
+        Page<TeamMembersDto> page = teamQueryRepository.findTeamsWithMembers(PageRequest.of(0, 4));
+        assertThat(page.getTotalElements()).isEqualTo(6);
+        assertThat(page.getContent()).extracting("name").containsExactly("team0", "team1", "team2", "team3");
+        assertThat(page.getContent().get(1).getMembers())
+                .extracting("username")
+                .containsExactly("member1-0", "member1-1", "member1-2");
+
+        // 페이지 크기와 상관없이 팀 1 + 회원 1 + count 1
+        assertThat(statements(PageRequest.of(0, 2))).isEqualTo(3);
+        assertThat(statements(PageRequest.of(0, 5))).isEqualTo(3);
+        // 마지막 페이지는 count 생략
+        assertThat(statements(PageRequest.of(0, 10))).isEqualTo(2);
+    }
+
+    private long statements(PageRequest pageRequest) {
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        long before = statistics.getPrepareStatementCount();
+        teamQueryRepository.findTeamsWithMembers(pageRequest);
+        return statistics.getPrepareStatementCount() - before;
+    }
+}
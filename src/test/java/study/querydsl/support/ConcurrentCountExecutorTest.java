@@ -0,0 +1,120 @@
+package study.querydsl.support;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class ConcurrentCountExecutorTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Autowired
+    ConcurrentCountExecutor concurrentCountExecutor;
+
+    @Test
+    public void countOnSeparateConnection() {
+        em.persist(new Member("concurrentCount", 10));
+        em.flush();
+
+        AtomicReference<String> countThread = new AtomicReference<>();
+        double used = registry.get(ConcurrentCountExecutor.USED).counter().count();
+
+        try (ConcurrentCountExecutor.PendingCount total = concurrentCountExecutor.submit(queryFactory -> {
+            countThread.set(Thread.currentThread().getName());
+            return queryFactory
+                    .select(member.id.count())
+                    .from(member)
+                    .where(member.username.eq("concurrentCount"));
+        }, () -> -1L)) {
+            // 별도 커넥션이라서 현재 트랜잭션에서 커밋하지 않은 insert 는 보이지 않는다.
+            assertThat(total.get()).isZero();
+        }
+        assertThat(countThread.get()).startsWith("count-query-");
+        assertThat(registry.get(ConcurrentCountExecutor.USED).counter().count()).isEqualTo(used + 1);
+
+        // 요청 스레드의 EntityManager 에서는 보인다.
+        assertThat(new JPAQueryFactory(em)
+                .select(member.id.count())
+                .from(member)
+                .where(member.username.eq("concurrentCount"))
+                .fetchOne()).isEqualTo(1);
+    }
+
+    @Test
+    public void timeoutAndFallback() throws Exception {
+        // 스레드 1개 (커넥션 풀 4개의 1/4)
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ConcurrentCountExecutor executor = new ConcurrentCountExecutor(em, transactionManager, registry, null,
+                1, 4, Duration.ofMillis(200));
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            ConcurrentCountExecutor.PendingCount slow = executor.submit(queryFactory -> {
+                await(release);
+                return queryFactory.select(member.id.count()).from(member);
+            }, () -> -1L);
+
+            // 시간 안에 끝나지 않으면 요청 스레드에서 다시 세지 않고 QueryTimeoutException
+            assertThatThrownBy(slow::get).isInstanceOf(QueryTimeoutException.class);
+            assertThat(registry.get(ConcurrentCountExecutor.TIMED_OUT).counter().count()).isEqualTo(1);
+            assertThat(registry.get(ConcurrentCountExecutor.ACTIVE).gauge().value()).isEqualTo(1);
+
+            // 실행 중인 count 가 스레드(커넥션)를 잡고 있으면 커넥션을 더 빌리지 않고 fallback 으로 요청 스레드에서 센다.
+            ConcurrentCountExecutor.PendingCount rejected = executor.submit(queryFactory -> {
+                await(release);
+                return queryFactory.select(member.id.count()).from(member);
+            }, () -> 42L);
+            assertThat(rejected.get()).isEqualTo(42L);
+            assertThat(registry.get(ConcurrentCountExecutor.REJECTED).counter().count()).isEqualTo(1);
+        } finally {
+            release.countDown();
+            executor.destroy();
+        }
+    }
+
+    @Test
+    public void poolSizeLimitedByConnectionPool() {
+        // 커넥션 풀 10개 중 count 가 추가로 빌릴 수 있는 건 2개까지
+        assertThatThrownBy(() -> new ConcurrentCountExecutor(em, transactionManager, new SimpleMeterRegistry(), null,
+                3, 10, Duration.ofSeconds(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * 타임아웃 시 cancel(true) 의 interrupt 를 무시하고 스레드를 계속 잡고 있는다.
+     */
+    private void await(CountDownLatch latch) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (latch.getCount() > 0 && System.nanoTime() < deadline) {
+            try {
+                latch.await(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package study.querydsl.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.WebApplicationContext;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@Transactional
+class MemberColumnarHttpMessageConverterTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    WebApplicationContext context;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    public void roundTrip() throws Exception {
+        List<MemberTeamDto> rows = Arrays.asList(
+                new MemberTeamDto(1L, "member1", 10, 1L, "teamA"),
+                new MemberTeamDto(2L, "회원2", 20, 2L, "teamB"),
+                new MemberTeamDto(3L, null, 30, 1L, "teamA"),
+                // 팀이 없는 회원 (left join)
+                new MemberTeamDto(4L, "member4", 40, null, null));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MemberColumnarCodec.write(rows, out);
+
+        assertThat(MemberColumnarCodec.read(new ByteArrayInputStream(out.toByteArray()))).isEqualTo(rows);
+    }
+
+    @Test
+    public void smallerThanJson() throws Exception {
+        List<MemberTeamDto> rows = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            rows.add(new MemberTeamDto((long) i, "member" + i, i % 100, (long) (i % 10), "team" + (i % 10)));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MemberColumnarCodec.write(rows, out);
+
+        assertThat(out.size()).isLessThan(objectMapper.writeValueAsBytes(rows).length / 2);
+    }
+
+    @Test
+    public void contentNegotiation() throws Exception {
+        Team team = new Team("columnarTeam");
+        em.persist(team);
+        em.persist(new Member("member1", 10, team));
+        em.persist(new Member("member2", 20, team));
+        em.flush();
+
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+
+        MockHttpServletResponse columnar = mockMvc.perform(get("/v1/members")
+                        .param("teamName", "columnarTeam")
+                        .accept(MemberColumnarHttpMessageConverter.MEDIA_TYPE))
+                .andReturn().getResponse();
+        assertThat(columnar.getStatus()).isEqualTo(200);
+        assertThat(columnar.getContentType()).isEqualTo(MemberColumnarHttpMessageConverter.MEDIA_TYPE.toString());
+
+        List<MemberTeamDto> rows = MemberColumnarCodec.read(new ByteArrayInputStream(columnar.getContentAsByteArray()));
+        assertThat(rows).extracting("username").containsExactlyInAnyOrder("member1", "member2");
+        assertThat(rows).extracting("teamName").containsOnly("columnarTeam");
+
+        // Accept 가 없으면 그대로 JSON
+        MockHttpServletResponse json = mockMvc.perform(get("/v1/members")
+                        .param("teamName", "columnarTeam")
+                        .accept(MediaType.ALL))
+                .andReturn().getResponse();
+        assertThat(json.getContentType()).startsWith(MediaType.APPLICATION_JSON_VALUE);
+    }
+}
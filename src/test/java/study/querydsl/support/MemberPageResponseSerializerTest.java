@@ -0,0 +1,42 @@
+package study.querydsl.support;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberPageResponse;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberPageResponseSerializerTest {
+
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void sameFieldsAsPageImpl() throws Exception {
+        List<MemberTeamDto> content = Arrays.asList(
+                new MemberTeamDto(1L, "member1", 10, 1L, "teamA"),
+                new MemberTeamDto(2L, "member\"2", 20, null, null));
+
+        assertSameAsPageImpl(new PageImpl<>(content, PageRequest.of(0, 2), 5));
+        assertSameAsPageImpl(new PageImpl<>(content, PageRequest.of(2, 2), 6));
+        assertSameAsPageImpl(new PageImpl<>(Collections.emptyList(), PageRequest.of(3, 2), 6));
+    }
+
+    private void assertSameAsPageImpl(PageImpl<MemberTeamDto> page) throws Exception {
+        ObjectNode expected = (ObjectNode) objectMapper.readTree(objectMapper.writeValueAsBytes(page));
+        // 화면에서 쓰지 않는 값
+        expected.remove(Arrays.asList("pageable", "sort"));
+
+        JsonNode actual = objectMapper.readTree(objectMapper.writeValueAsBytes(MemberPageResponse.of(page)));
+
+        assertThat(actual).isEqualTo(expected);
+    }
+}
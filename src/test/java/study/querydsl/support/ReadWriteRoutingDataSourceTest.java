@@ -0,0 +1,209 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+import study.querydsl.controller.MemberController;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.servlet.http.Cookie;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 내장 H2 두 개를 primary / replica 로 띄워서 라우팅을 확인한다.
+ * replica 에는 스키마가 없으므로 어느 DB 에 붙었는지는 DATABASE() 로 확인한다.
+ */
+@SpringBootTest(properties = {
+        "querydsl.datasource.routing.enabled=true",
+        "querydsl.datasource.routing.sticky-window=10s",
+        "spring.datasource.hikari.jdbc-url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+        "querydsl.datasource.replica.jdbc-url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+        "querydsl.datasource.replica.username=sa",
+        "querydsl.datasource.replica.driver-class-name=org.h2.Driver",
+        "decorator.datasource.exclude-beans=readWriteDataSource"
+})
+class ReadWriteRoutingDataSourceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ReadWriteRoutingDataSource dataSource;
+
+    @Autowired
+    ReplicaStickiness replicaStickiness;
+
+    @Autowired
+    MemberController memberController;
+
+    @Autowired
+    SearchETag searchETag;
+
+    @Autowired
+    ConcurrentCountExecutor concurrentCountExecutor;
+
+    @AfterEach
+    public void after() {
+        replicaStickiness.clear();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void readOnlyGoesToReplica() {
+        assertThat(database(true)).isEqualTo("REPLICA");
+        assertThat(database(false)).isEqualTo("PRIMARY");
+
+        // 트랜잭션 밖은 primary
+        assertThat(em.createNativeQuery("select database()").getSingleResult()).isEqualTo("PRIMARY");
+    }
+
+    @Test
+    public void readYourWrites() {
+        long sticky = dataSource.getStickyCount();
+
+        write();
+
+        // 쓰기 직후에는 readOnly 라도 primary 에서 읽는다.
+        assertThat(database(true)).isEqualTo("PRIMARY");
+        assertThat(dataSource.getStickyCount()).isEqualTo(sticky + 1);
+
+        replicaStickiness.clear();
+        assertThat(database(true)).isEqualTo("REPLICA");
+    }
+
+    @Test
+    public void stickyAcrossRequests() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), response));
+
+        write();
+        assertThat(database(true)).isEqualTo("PRIMARY");
+
+        Cookie cookie = response.getCookie(ReplicaStickiness.COOKIE_NAME);
+        assertThat(cookie).isNotNull();
+
+        // 같은 클라이언트의 다음 요청 : 쿠키로 primary 유지
+        MockHttpServletRequest next = new MockHttpServletRequest();
+        next.setCookies(cookie);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(next, new MockHttpServletResponse()));
+        assertThat(database(true)).isEqualTo("PRIMARY");
+
+        // 쿠키가 없는 다른 클라이언트는 replica
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), new MockHttpServletResponse()));
+        assertThat(database(true)).isEqualTo("REPLICA");
+
+        // 잘못된 쿠키 값은 무시
+        MockHttpServletRequest malformed = new MockHttpServletRequest();
+        malformed.setCookies(new Cookie(ReplicaStickiness.COOKIE_NAME, "forever"));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(malformed, new MockHttpServletResponse()));
+        assertThat(database(true)).isEqualTo("REPLICA");
+    }
+
+    @Test
+    public void stickyOnAsyncSearch() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), response));
+        write();
+        Cookie cookie = response.getCookie(ReplicaStickiness.COOKIE_NAME);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+
+        // 검색은 SearchBulkhead 스레드에서 실행되지만 요청의 쿠키를 따라 primary 에서 읽는다.
+        MockHttpServletRequest next = new MockHttpServletRequest();
+        next.setCookies(cookie);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(next, new MockHttpServletResponse()));
+        long sticky = dataSource.getStickyCount();
+        assertThat(memberController.searchMemberV1Async(condition, new ServletWebRequest(next)).get(5, TimeUnit.SECONDS)).isEmpty();
+        assertThat(dataSource.getStickyCount()).isGreaterThan(sticky);
+
+        // 쿠키가 없는 클라이언트는 위의 sticky 조회 결과(캐시, single-flight)를 받지 않고 replica 로 : 스키마가 없어서 실패
+        MockHttpServletRequest other = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(other, new MockHttpServletResponse()));
+        long replica = dataSource.getRoutedCount(ReadWriteRoutingDataSource.Target.REPLICA);
+        assertThatThrownBy(() -> memberController.searchMemberV1Async(condition, new ServletWebRequest(other)).get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class);
+        assertThat(dataSource.getRoutedCount(ReadWriteRoutingDataSource.Target.REPLICA)).isGreaterThan(replica);
+    }
+
+    @Test
+    public void eTagOnlyForPrimaryReads() {
+        // replica 에서 읽을 요청 : 복제 지연으로 옛날 결과일 수 있으므로 ETag 를 주지 않고 If-None-Match 도 무시
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/members");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, searchETag.eTag("v1-members", "key", null));
+        assertThat(searchETag.checkNotModified(new ServletWebRequest(request, response), "v1-members", "key")).isFalse();
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isNull();
+
+        // 쓰기 직후(primary 에서 읽는 요청)에는 ETag 를 준다.
+        write();
+        MockHttpServletResponse sticky = new MockHttpServletResponse();
+        assertThat(searchETag.checkNotModified(new ServletWebRequest(request, sticky), "v1-members", "key")).isFalse();
+        assertThat(sticky.getHeader(HttpHeaders.ETAG)).isNotNull();
+    }
+
+    @Test
+    public void concurrentCountFollowsRouting() {
+        // readOnly 검색의 count 는 content 와 같이 replica 에서 센다. (스키마가 없어서 실패)
+        assertThat(countDatabase(true)).isEqualTo("REPLICA");
+        // 쓰기 트랜잭션의 count 는 primary
+        assertThat(countDatabase(false)).isEqualTo("PRIMARY");
+
+        // 쓰기 직후에는 readOnly 라도 count 스레드에서 primary
+        write();
+        assertThat(countDatabase(true)).isEqualTo("PRIMARY");
+    }
+
+    private String countDatabase(boolean readOnly) {
+        AtomicReference<String> database = new AtomicReference<>();
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        template.executeWithoutResult(status -> {
+            try (ConcurrentCountExecutor.PendingCount total = concurrentCountExecutor.submit(queryFactory -> {
+                database.set((String) em.createNativeQuery("select database()").getSingleResult());
+                return queryFactory.select(member.id.count()).from(member);
+            }, () -> -1L)) {
+                total.get();
+            } catch (RuntimeException e) {
+                assertThat(database.get()).isEqualTo("REPLICA");
+            }
+        });
+        return database.get();
+    }
+
+    private void write() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.executeWithoutResult(status -> {
+            em.persist(new Member("member1", 10));
+            em.flush();
+            status.setRollbackOnly();
+        });
+    }
+
+    private String database(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template.execute(status -> (String) em.createNativeQuery("select database()").getSingleResult());
+    }
+}
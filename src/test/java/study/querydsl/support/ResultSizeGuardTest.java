@@ -0,0 +1,123 @@
+package study.querydsl.support;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.impl.MemberRepositoryImpl;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "querydsl.search-guard.max-rows=3")
+@Transactional
+class ResultSizeGuardTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Autowired
+    AutowireCapableBeanFactory beanFactory;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        for (int i = 0; i < 3; i++) {
+            em.persist(new Member("memberA" + i, 10 + i, teamA));
+        }
+        for (int i = 0; i < 4; i++) {
+            em.persist(new Member("memberB" + i, 20 + i, teamB));
+        }
+    }
+
+    @Test
+    public void withinLimit() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        // max-rows 와 같은 건수까지는 그대로 반환
+        assertThat(memberJpaRepository.search(condition)).hasSize(3);
+        assertThat(memberRepository.search(condition)).hasSize(3);
+    }
+
+    @Test
+    public void overflow() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        double rejected = rejectedCount("MemberJpaRepository.search", "overflow");
+
+        assertThatThrownBy(() -> memberJpaRepository.search(condition))
+                .isInstanceOf(SearchLimitExceededException.class)
+                .hasMessageContaining("more than 3 rows");
+        assertThatThrownBy(() -> memberRepository.search(condition))
+                .isInstanceOf(SearchLimitExceededException.class);
+        // 빈으로 등록되지 않은 QuerydslRepositorySupport 구현체도 같은 제한
+        MemberRepositoryImpl memberRepositoryImpl = beanFactory.createBean(MemberRepositoryImpl.class);
+        assertThatThrownBy(() -> memberRepositoryImpl.search(condition))
+                .isInstanceOf(SearchLimitExceededException.class);
+        assertThat(rejectedCount("MemberJpaRepository.search", "overflow")).isEqualTo(rejected + 1);
+
+        // 같은 이름, 사유는 같은 Counter 를 재사용
+        assertThatThrownBy(() -> memberJpaRepository.search(condition))
+                .isInstanceOf(SearchLimitExceededException.class);
+        assertThat(registry.find(ResultSizeGuard.REJECTED).tags("name", "MemberJpaRepository.search", "reason", "overflow").counters()).hasSize(1);
+        assertThat(rejectedCount("MemberJpaRepository.search", "overflow")).isEqualTo(rejected + 2);
+
+        // 같은 조건이라도 export 는 건수 제한 없이 스트리밍
+        assertThat(memberJpaRepository.stream(condition, row -> { })).isEqualTo(4);
+    }
+
+    @Test
+    public void unfiltered() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        double rejected = rejectedCount("MemberJpaRepository.search", "unfiltered");
+
+        assertThatThrownBy(() -> memberJpaRepository.search(condition))
+                .isInstanceOf(SearchLimitExceededException.class)
+                .hasMessageContaining("requires at least one search condition");
+        assertThat(rejectedCount("MemberJpaRepository.search", "unfiltered")).isEqualTo(rejected + 1);
+
+        // 조건이 하나라도 있으면 검색 가능
+        condition.setUsername("memberA0");
+        assertThat(memberJpaRepository.search(condition)).hasSize(1);
+    }
+
+    @Test
+    public void badRequest() {
+        ResponseStatus status = AnnotatedElementUtils.findMergedAnnotation(SearchLimitExceededException.class, ResponseStatus.class);
+        assertThat(status.code()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    private double rejectedCount(String name, String reason) {
+        return registry.find(ResultSizeGuard.REJECTED).tags("name", name, "reason", reason).counters().stream()
+                .mapToDouble(counter -> counter.count())
+                .sum();
+    }
+}
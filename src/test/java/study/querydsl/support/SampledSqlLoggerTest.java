@@ -0,0 +1,55 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.repository.MemberRepository;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class SampledSqlLoggerTest {
+
+    @Autowired
+    SampledSqlLogger sampledSqlLogger;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @AfterEach
+    void restore() {
+        sampledSqlLogger.configure(SampledSqlLogger.Mode.SAMPLED, 100, Duration.ofMillis(200));
+    }
+
+    @Test
+    public void switchMode() throws InterruptedException {
+        // OFF : 버퍼에 아무것도 쌓이지 않는다.
+        sampledSqlLogger.configure(SampledSqlLogger.Mode.OFF, 1, Duration.ofHours(1));
+        long sampled = sampledSqlLogger.getSampledCount();
+        memberRepository.findByUsername("member1");
+        assertThat(sampledSqlLogger.getSampledCount()).isEqualTo(sampled);
+
+        // SLOW : 기준보다 빠른 쿼리는 남기지 않는다.
+        sampledSqlLogger.configure(SampledSqlLogger.Mode.SLOW, 1, Duration.ofHours(1));
+        memberRepository.findByUsername("member1");
+        assertThat(sampledSqlLogger.getSampledCount()).isEqualTo(sampled);
+
+        // ALL : 전부 남기고, 출력은 drainer 스레드가 한다.
+        sampledSqlLogger.configure(SampledSqlLogger.Mode.ALL, 1, Duration.ofHours(1));
+        long logged = sampledSqlLogger.getLoggedCount();
+        memberRepository.findByUsername("member1");
+        memberRepository.findByUsername("member2");
+        assertThat(sampledSqlLogger.getSampledCount()).isEqualTo(sampled + 2);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (sampledSqlLogger.getLoggedCount() < logged + 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(sampledSqlLogger.getLoggedCount()).isGreaterThanOrEqualTo(logged + 2);
+    }
+}
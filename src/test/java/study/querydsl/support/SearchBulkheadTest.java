@@ -0,0 +1,72 @@
+package study.querydsl.support;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchBulkheadTest {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    // 스레드 1개, 대기 1개
+    SearchBulkhead bulkhead = new SearchBulkhead(registry, null, 1, 1);
+
+    @AfterEach
+    void after() {
+        bulkhead.destroy();
+    }
+
+    @Test
+    public void rejectWhenQueueIsFull() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> slow = bulkhead.submit(() -> {
+            running.countDown();
+            await(release);
+            return "slow";
+        });
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<String> queued = bulkhead.submit(() -> "queued");
+        assertThat(bulkhead.getQueueSize()).isEqualTo(1);
+        assertThat(registry.get(SearchBulkhead.QUEUE).gauge().value()).isEqualTo(1);
+        assertThat(registry.get(SearchBulkhead.ACTIVE).gauge().value()).isEqualTo(1);
+
+        // 큐가 가득 차면 기다리지 않고 요청 스레드에서 바로 거절
+        assertThatThrownBy(() -> bulkhead.submit(() -> "rejected"))
+                .isInstanceOf(SearchRejectedException.class);
+        assertThat(registry.get(SearchBulkhead.REJECTED).counter().count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(slow.get(5, TimeUnit.SECONDS)).isEqualTo("slow");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("queued");
+
+        // 대기 시간은 실행된 검색마다 기록
+        assertThat(registry.get(SearchBulkhead.WAIT).timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    public void rejectionIsServiceUnavailable() {
+        ResponseStatus status = AnnotatedElementUtils.findMergedAnnotation(SearchRejectedException.class, ResponseStatus.class);
+        assertThat(status).isNotNull();
+        assertThat(status.code()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
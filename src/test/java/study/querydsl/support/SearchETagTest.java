@@ -0,0 +1,106 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.WebApplicationContext;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@Transactional
+class SearchETagTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    WebApplicationContext context;
+
+    @Autowired
+    SearchETag searchETag;
+
+    @Autowired
+    SingleFlight singleFlight;
+
+    MockMvc mockMvc;
+    Team team;
+
+    @BeforeEach
+    void before() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+
+        team = new Team("etagTeam");
+        em.persist(team);
+        em.persist(new Member("member1", 10, team));
+        em.flush();
+    }
+
+    @Test
+    public void notModifiedWithoutQuery() throws Exception {
+        MockHttpServletResponse first = perform(simpleMembers());
+        assertThat(first.getStatus()).isEqualTo(200);
+        String eTag = first.getHeader(HttpHeaders.ETAG);
+        assertThat(eTag).isNotNull();
+
+        // 같은 조건 + 같은 ETag : 조회하지 않고 304
+        long searches = singleFlight.getLeaderCount("v2-simple-members");
+        MockHttpServletResponse notModified = perform(simpleMembers().header(HttpHeaders.IF_NONE_MATCH, eTag));
+        assertThat(notModified.getStatus()).isEqualTo(304);
+        assertThat(notModified.getContentAsByteArray()).isEmpty();
+        assertThat(singleFlight.getLeaderCount("v2-simple-members")).isEqualTo(searches);
+
+        // 조건, 페이지, Accept 가 다르면 다른 ETag
+        assertThat(perform(simpleMembers().param("page", "1").header(HttpHeaders.IF_NONE_MATCH, eTag)).getStatus()).isEqualTo(200);
+        assertThat(perform(simpleMembers().param("username", "member1").header(HttpHeaders.IF_NONE_MATCH, eTag)).getStatus()).isEqualTo(200);
+        assertThat(perform(get("/v1/members").param("teamName", "etagTeam")
+                .accept(MemberColumnarHttpMessageConverter.MEDIA_TYPE)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    public void changeInvalidatesETag() throws Exception {
+        String eTag = perform(simpleMembers()).getHeader(HttpHeaders.ETAG);
+        long version = searchETag.getVersion();
+
+        // 회원 insert -> member 테이블 버전 증가
+        em.persist(new Member("member2", 20, team));
+        em.flush();
+        assertThat(searchETag.getVersion()).isGreaterThan(version);
+
+        MockHttpServletResponse changed = perform(simpleMembers().header(HttpHeaders.IF_NONE_MATCH, eTag));
+        assertThat(changed.getStatus()).isEqualTo(200);
+        assertThat(changed.getHeader(HttpHeaders.ETAG)).isNotEqualTo(eTag);
+        assertThat(changed.getContentAsString()).contains("member2");
+    }
+
+    @Test
+    public void ignoreOtherEntities() {
+        long version = searchETag.getVersion();
+        searchETag.onEntityChange(new EntityChangeEvent(String.class));
+        assertThat(searchETag.getVersion()).isEqualTo(version);
+    }
+
+    private MockHttpServletRequestBuilder simpleMembers() {
+        return get("/v2/simple/members")
+                .param("teamName", "etagTeam")
+                .accept(MediaType.APPLICATION_JSON);
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequestBuilder request) throws Exception {
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+}
@@ -0,0 +1,118 @@
+package study.querydsl.support;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.controller.MemberController;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class SearchResultCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberController memberController;
+
+    @Autowired
+    SearchResultCache searchResultCache;
+
+    @AfterEach
+    void restore() {
+        searchResultCache.setEnabled("v1-members", true);
+    }
+
+    @Test
+    public void cacheAndInvalidate() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        long hits = searchResultCache.getHitCount("v1-members");
+        List<MemberTeamDto> first = memberController.searchMemberV1(condition);
+        assertThat(first).hasSize(2);
+
+        // 공백이 섞여도 같은 조건이면 캐시된 결과
+        condition.setUsername(" ");
+        assertThat(memberController.searchMemberV1(condition)).isSameAs(first);
+        assertThat(searchResultCache.getHitCount("v1-members")).isEqualTo(hits + 1);
+
+        // 회원 insert 가 일어나면 무효화
+        em.persist(new Member("member3", 30, teamA));
+        em.flush();
+        assertThat(memberController.searchMemberV1(condition)).hasSize(3);
+
+        // 페이지가 다르면 다른 키
+        assertThat(memberController.searchComplexMember(condition, PageRequest.of(0, 2)).getContent()).hasSize(2);
+        assertThat(memberController.searchComplexMember(condition, PageRequest.of(1, 2)).getContent()).hasSize(1);
+    }
+
+    @Test
+    public void disableEndpoint() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.flush();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        searchResultCache.setEnabled("v1-members", false);
+
+        List<MemberTeamDto> first = memberController.searchMemberV1(condition);
+        assertThat(memberController.searchMemberV1(condition)).isNotSameAs(first);
+        assertThat(searchResultCache.size("v1-members")).isZero();
+        assertThat(searchResultCache.getSwitches()).containsEntry("v1-members", false);
+    }
+
+    @Test
+    public void boundByRows() {
+        // 항목은 10개까지 되지만 row 합계는 5개까지
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SearchResultCache cache = new SearchResultCache(registry, null, 10, 5, Duration.ofMinutes(1), Set.of());
+
+        List<Integer> two = List.of(1, 2);
+        assertThat(cache.get("rows", "a", () -> two, List::size)).isSameAs(two);
+        assertThat(cache.get("rows", "b", () -> List.of(3, 4), List::size)).hasSize(2);
+        assertThat(cache.getCachedRows()).isEqualTo(4);
+
+        // a 를 최근에 사용 : 넘치면 오래 안 쓴 b 부터 버린다.
+        assertThat(cache.get("rows", "a", () -> List.of(), List::size)).isSameAs(two);
+        cache.get("rows", "c", () -> List.of(5, 6), List::size);
+        assertThat(cache.size("rows")).isEqualTo(2);
+        assertThat(cache.getCachedRows()).isEqualTo(4);
+        assertThat(registry.get(SearchResultCache.ROWS).gauge().value()).isEqualTo(4);
+        assertThat(cache.get("rows", "a", () -> List.of(), List::size)).isSameAs(two);
+        assertThat(cache.get("rows", "b", () -> List.of(), List::size)).isEmpty();
+
+        // 혼자서 max-rows 를 넘는 결과는 캐시하지 않는다.
+        List<Integer> large = List.of(1, 2, 3, 4, 5, 6);
+        cache.get("rows", "large", () -> large, List::size);
+        assertThat(cache.get("rows", "large", () -> List.of(), List::size)).isEmpty();
+        assertThat(registry.get(SearchResultCache.REQUESTS).tags("name", "rows", "result", "oversized").counter().count())
+                .isEqualTo(1);
+
+        cache.invalidate(new EntityChangeEvent(Member.class));
+        assertThat(cache.getCachedRows()).isZero();
+    }
+}
@@ -0,0 +1,132 @@
+package study.querydsl.support;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    ReplicaStickiness stickiness = new ReplicaStickiness(Duration.ofSeconds(10));
+    SingleFlight singleFlight = new SingleFlight(registry, stickiness);
+    ExecutorService callers = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void after() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    public void collapseConcurrentCalls() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        results.add(callers.submit(() -> singleFlight.execute("search", "teamA", () -> {
+            executions.incrementAndGet();
+            started.countDown();
+            await(release);
+            return "result";
+        })));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // leader 가 실행 중인 동안 들어온 같은 키의 호출
+        for (int i = 0; i < 7; i++) {
+            results.add(callers.submit(() -> singleFlight.execute("search", "teamA", () -> {
+                executions.incrementAndGet();
+                return "other";
+            })));
+        }
+        waitUntilCollapsed(7);
+
+        // 다른 키는 따로 실행
+        assertThat(singleFlight.execute("search", "teamB", () -> "teamB")).isEqualTo("teamB");
+
+        release.countDown();
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        }
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(singleFlight.getLeaderCount("search")).isEqualTo(2);
+        assertThat(registry.get(SingleFlight.CALLS).tags("name", "search", "role", "collapsed").counter().count()).isEqualTo(7);
+        assertThat(singleFlight.getInFlightCount()).isZero();
+
+        // 끝난 실행은 보관하지 않는다.
+        assertThat(singleFlight.execute("search", "teamA", () -> "again")).isEqualTo("again");
+    }
+
+    @Test
+    public void shareFailure() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = callers.submit(() -> singleFlight.execute("search", "key", () -> {
+            started.countDown();
+            await(release);
+            throw new IllegalStateException("boom");
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Future<String> follower = callers.submit(() -> singleFlight.execute("search", "key", () -> "never"));
+        waitUntilCollapsed(1);
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(singleFlight.getInFlightCount()).isZero();
+    }
+
+    @Test
+    public void stickyCallerDoesNotJoinReplicaRead() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> replicaRead = callers.submit(() -> singleFlight.execute("search", "key", () -> {
+            started.countDown();
+            await(release);
+            return "replica";
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // 쓰기 직후인 호출은 replica 에서 읽은 leader 의 결과를 받지 않고 따로 실행한다.
+        long primaryUntil = System.currentTimeMillis() + 10_000;
+        Future<String> stickyRead = callers.submit(() -> stickiness.callWith(primaryUntil,
+                () -> singleFlight.execute("search", "key", () -> "primary")));
+        assertThat(stickyRead.get(5, TimeUnit.SECONDS)).isEqualTo("primary");
+        assertThat(singleFlight.getCollapsedCount("search")).isZero();
+
+        release.countDown();
+        assertThat(replicaRead.get(5, TimeUnit.SECONDS)).isEqualTo("replica");
+        assertThat(singleFlight.getLeaderCount("search")).isEqualTo(2);
+    }
+
+    private void waitUntilCollapsed(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (singleFlight.getCollapsedCount("search") < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(singleFlight.getCollapsedCount("search")).isEqualTo(expected);
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}